@@ -1,10 +1,19 @@
 package main;
 
+import main.datastructures.BSTree;
 import main.utils.BSTreeLogging;
+import main.utils.RepositoryIndex;
+import main.utils.WordNode;
+import main.utils.WordQuery;
 import main.utils.WordTracker;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * The Runner class is the main class of the program.
@@ -15,52 +24,84 @@ public class Runner {
      * The main runner method of the program.
      *
      * @param args the arguments passed in from the command line
-     *             Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]
+     *             Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]
+     *             where -m memory-maps the input files and -b bulk loads them,
+     *             or -s <prefix> to search the saved repository, where the prefix may be a pattern with * and ?
      */
     public static void main(String[] args) {
 
+        // look up words in the saved repository without indexing anything
+        if (args.length == 2 && args[0].equalsIgnoreCase("-s")) {
+            printSearchResults(args[1]);
+            return;
+        }
+
+        // the input files or directories come before the flags
+        int inputCount = 0;
+        while (inputCount < args.length && !args[inputCount].startsWith("-"))
+            inputCount++;
+
+        // the flags that only switch on an option can go anywhere after the input files
+        boolean memoryMapped = false;
+        boolean bulkLoad = false;
+        List<String> remainingArgs = new ArrayList<>(Arrays.asList(args));
+        for (int i = remainingArgs.size() - 1; i >= inputCount; i--) {
+            if (i > 0 && remainingArgs.get(i - 1).equalsIgnoreCase("-f"))
+                continue;
+            if (remainingArgs.get(i).equalsIgnoreCase("-m")) {
+                memoryMapped = true;
+                remainingArgs.remove(i);
+            } else if (remainingArgs.get(i).equalsIgnoreCase("-b")) {
+                bulkLoad = true;
+                remainingArgs.remove(i);
+            }
+        }
+        args = remainingArgs.toArray(new String[0]);
+
         //build arguments
-        String arguments = getArguments(args);
+        String arguments = getArguments(Arrays.copyOfRange(args, inputCount, args.length));
 
         if (args.length == 0) {
             System.out.println("No arguments were given.");
-            System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+            System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
             return;
         }
 
-        if (args.length < 2) {
-            System.out.println("Invalid argument count, please follow the proper format: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+        if (inputCount == 0 || args.length == inputCount) {
+            System.out.println("Invalid argument count, please follow the proper format: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
             return;
         }
 
-        String inputFile = args[0];
-        if (!new File(inputFile).exists()) {
-            System.out.println("The input file does not exist.");
-            System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
-            return;
+        List<String> inputFiles = Arrays.asList(args).subList(0, inputCount);
+        for (String inputFile : inputFiles) {
+            if (!new File(inputFile).exists()) {
+                System.out.println("The input file does not exist: " + inputFile);
+                System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
+                return;
+            }
         }
 
         String argument = getValueForFlagLabel("p", arguments);
         if (argument == null) {
-            System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+            System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
             return;
         }
 
         // get the output file if it exists
-        String outputFile = args.length == 4 && args[2].equalsIgnoreCase("-f") ? args[3] : null;
+        String outputFile = args.length == inputCount + 3 && args[inputCount + 1].equalsIgnoreCase("-f") ? args[inputCount + 2] : null;
         if (outputFile == null && arguments.contains("-f")) {
             String outputFileFlag = getValueForFlagLabel("f", arguments);
             if (outputFileFlag == null) {
                 System.out.println("The -f flag is present, but no file name was given.");
-                System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+                System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
                 return;
             }
             outputFile = outputFileFlag;
         }
 
-        if (args.length == 4 && !arguments.contains("-f")) {
+        if (args.length == inputCount + 3 && !arguments.contains("-f")) {
             System.out.println("Output file arguments formatted incorrectly.");
-            System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+            System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
             return;
         }
 
@@ -68,19 +109,19 @@ public class Runner {
         switch (argument) {
             case "f":
                 System.out.println("Printing words with files...");
-                printResults(argument, inputFile, outputFile);
+                printResults(argument, inputFiles, outputFile, memoryMapped, bulkLoad);
                 break;
             case "l":
                 System.out.println("Printing words with lines...");
-                printResults(argument, inputFile, outputFile);
+                printResults(argument, inputFiles, outputFile, memoryMapped, bulkLoad);
                 break;
             case "o":
                 System.out.println("Printing words with line numbers...");
-                printResults(argument, inputFile, outputFile);
+                printResults(argument, inputFiles, outputFile, memoryMapped, bulkLoad);
                 break;
             default:
                 System.out.println("Invalid argument for the -p flag: " + argument);
-                System.out.println("Proper arguments: <input.txt> -pf/-pl/-po [-f <output.txt>]");
+                System.out.println("Proper arguments: <input.txt> [<input.txt>...] -pf/-pl/-po [-f <output.txt>] [-m] [-b]");
                 break;
         }
 
@@ -90,21 +131,31 @@ public class Runner {
      * Prints the results of the tree to the console or to a file.
      *
      * @param argument   the argument passed in from the command line
-     * @param inputFile  the input file to read from
+     * @param inputFiles the input files or directories to read from
      * @param outputFile the output file to write to
+     * @param memoryMapped whether the input files are memory-mapped
+     * @param bulkLoad whether the input files are bulk loaded
      */
-    private static void printResults(String argument, String inputFile, String outputFile) {
-        System.out.println("Processing file: " + inputFile);
+    private static void printResults(String argument, List<String> inputFiles, String outputFile,
+                                     boolean memoryMapped, boolean bulkLoad) {
+        System.out.println("Processing files: " + String.join(", ", inputFiles));
 
         long startTime = System.currentTimeMillis();
         WordTracker wordTracker = new WordTracker();
+        if (wordTracker.getReadFailure() != null)
+            System.err.println(wordTracker.getReadFailure().getMessage() + ", the repository will not be saved");
+        if (wordTracker.getJournalDamage() != null)
+            System.err.println("Ignoring damaged journal record: " + wordTracker.getJournalDamage());
+        wordTracker.setMemoryMapped(memoryMapped);
+        wordTracker.setBulkLoad(bulkLoad);
         try {
-            wordTracker.processFile(inputFile);
-            wordTracker.saveTreeToFile();
+            wordTracker.processFiles(inputFiles);
         } catch (IOException e) {
-            System.out.println("File not found: " + inputFile);
+            System.out.println("File not found: " + e.getMessage());
             return;
         }
+        // the report is written while the tree is saved
+        Future<?> saving = wordTracker.saveTreeToFileInBackground();
         BSTreeLogging bsTreeLogging;
         if (outputFile != null) {
             bsTreeLogging = new BSTreeLogging(wordTracker.getWordTree(), outputFile);
@@ -126,6 +177,41 @@ public class Runner {
 
         //save the file
         bsTreeLogging.close();
+        try {
+            saving.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Failed to save tree to file: " + e.getCause());
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("Time elapsed: " + (endTime - startTime) + "ms");
+    }
+
+    /**
+     * Prints the saved words that start with a prefix, or match a pattern with * and ? wildcards,
+     * with their line numbers, to the console.
+     *
+     * @param query the start of the words to print, or the pattern they have to match
+     */
+    private static void printSearchResults(String query) {
+        long startTime = System.currentTimeMillis();
+        boolean pattern = WordQuery.isPattern(query);
+        List<WordNode> wordNodes;
+        try {
+            RepositoryIndex repositoryIndex = WordTracker.openRepositoryIndex();
+            wordNodes = pattern ? repositoryIndex.findPattern(query) : repositoryIndex.findPrefix(query);
+        } catch (IOException e) {
+            System.out.println("Could not open the repository: " + e.getMessage());
+            return;
+        }
+        if (wordNodes.isEmpty()) {
+            System.out.println((pattern ? "No saved words match: " : "No saved words start with: ") + query);
+            return;
+        }
+        BSTreeLogging bsTreeLogging = new BSTreeLogging(BSTree.buildFromSorted(wordNodes));
+        bsTreeLogging.printWordsWithLineNumbers();
+        bsTreeLogging.close();
         long endTime = System.currentTimeMillis();
         System.out.println("Time elapsed: " + (endTime - startTime) + "ms");
     }
@@ -0,0 +1,56 @@
+package main.datastructures;
+
+/**
+ * The height and balance arithmetic of an AVL tree, shared by the trees in this package that balance like one,
+ * whatever their nodes are made of. A missing subtree has height -1 and a leaf has height 0.
+ */
+final class AVLBalance {
+
+    private AVLBalance() {
+    }
+
+    /**
+     * Returns the height of a node whose subtrees have the given heights.
+     *
+     * @param leftHeight the height of the left subtree
+     * @param rightHeight the height of the right subtree
+     * @return the height of the node
+     */
+    static int height(int leftHeight, int rightHeight) {
+        return Math.max(leftHeight, rightHeight) + 1;
+    }
+
+    /**
+     * Checks if a node whose subtrees have the given heights leans too far to the left, so it has to be rotated right.
+     *
+     * @param leftHeight the height of the left subtree
+     * @param rightHeight the height of the right subtree
+     * @return true if the left subtree is more than one taller
+     */
+    static boolean leansLeft(int leftHeight, int rightHeight) {
+        return leftHeight - rightHeight > 1;
+    }
+
+    /**
+     * Checks if a node whose subtrees have the given heights leans too far to the right, so it has to be rotated left.
+     *
+     * @param leftHeight the height of the left subtree
+     * @param rightHeight the height of the right subtree
+     * @return true if the right subtree is more than one taller
+     */
+    static boolean leansRight(int leftHeight, int rightHeight) {
+        return rightHeight - leftHeight > 1;
+    }
+
+    /**
+     * Checks if the taller child of a node that leans too far has to be rotated the other way first, which it has
+     * when its inner subtree, the one nearer the middle of the node, is taller than its outer one.
+     *
+     * @param outerHeight the height of the subtree of the child on the side the node leans to
+     * @param innerHeight the height of the other subtree of the child
+     * @return true if the rotation has to be a double rotation
+     */
+    static boolean needsDoubleRotation(int outerHeight, int innerHeight) {
+        return outerHeight < innerHeight;
+    }
+}
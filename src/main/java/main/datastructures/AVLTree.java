@@ -0,0 +1,142 @@
+package main.datastructures;
+
+import java.util.List;
+
+/**
+ * A self-balancing Binary Search Tree (AVL tree).
+ * After every insertion or removal the heights of the two subtrees of any node differ by at most one,
+ * so the height of the tree stays logarithmic even when elements arrive in sorted order.
+ *
+ * @param <E> the generic type of elements in this tree. E must be Comparable.
+ */
+public class AVLTree<E extends Comparable<? super E>> extends BSTree<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an empty AVLTree.
+     */
+    public AVLTree() {
+        super();
+    }
+
+    /**
+     * Builds a perfectly balanced AVLTree from elements that are already in ascending order, in linear time.
+     *
+     * @param   sorted the elements in strictly ascending order
+     * @param   <E> the type of elements in the tree
+     * @return  a tree holding the elements
+     * @throws  IllegalArgumentException if the elements are not in strictly ascending order
+     */
+    public static <E extends Comparable<? super E>> AVLTree<E> buildFromSorted(List<? extends E> sorted) {
+        AVLTree<E> tree = new AVLTree<>();
+        tree.fillFromSorted(sorted);
+        return tree;
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the height of the tree
+     */
+    @Override
+    public int getHeight() {
+        return height(root);
+    }
+
+    /**
+     * Rebalances the tree after a new leaf has been linked in.
+     *
+     * @param node the node that was just added
+     */
+    @Override
+    protected void afterInsert(BSTreeNode<E> node) {
+        rebalance(node.getParent());
+    }
+
+    /**
+     * Rebalances the tree after a node has been unlinked.
+     *
+     * @param parent the former parent of the unlinked node, or null if it was the root
+     */
+    @Override
+    protected void afterRemove(BSTreeNode<E> parent) {
+        rebalance(parent);
+    }
+
+    // walks from node towards the root, fixing heights and rotating unbalanced nodes
+    private void rebalance(BSTreeNode<E> node) {
+        while (node != null) {
+            int oldHeight = node.getHeight();
+            updateHeight(node);
+            int leftHeight = height(node.getLeft());
+            int rightHeight = height(node.getRight());
+            if (AVLBalance.leansLeft(leftHeight, rightHeight)) {
+                if (AVLBalance.needsDoubleRotation(height(node.getLeft().getLeft()), height(node.getLeft().getRight())))
+                    rotateLeft(node.getLeft());
+                node = rotateRight(node);
+            } else if (AVLBalance.leansRight(leftHeight, rightHeight)) {
+                if (AVLBalance.needsDoubleRotation(height(node.getRight().getRight()),
+                        height(node.getRight().getLeft())))
+                    rotateRight(node.getRight());
+                node = rotateLeft(node);
+            }
+            // nothing above this subtree changes once its height is back to what it was
+            if (node.getHeight() == oldHeight)
+                return;
+            node = node.getParent();
+        }
+    }
+
+    // helper method to rotate the subtree rooted at node to the left, returns the new subtree root
+    private BSTreeNode<E> rotateLeft(BSTreeNode<E> node) {
+        BSTreeNode<E> pivot = node.getRight();
+        node.setRight(pivot.getLeft());
+        if (pivot.getLeft() != null)
+            pivot.getLeft().setParent(node);
+        replaceChild(node, pivot);
+        pivot.setLeft(node);
+        node.setParent(pivot);
+        updateHeight(node);
+        updateHeight(pivot);
+        updateSize(node);
+        updateSize(pivot);
+        return pivot;
+    }
+
+    // helper method to rotate the subtree rooted at node to the right, returns the new subtree root
+    private BSTreeNode<E> rotateRight(BSTreeNode<E> node) {
+        BSTreeNode<E> pivot = node.getLeft();
+        node.setLeft(pivot.getRight());
+        if (pivot.getRight() != null)
+            pivot.getRight().setParent(node);
+        replaceChild(node, pivot);
+        pivot.setRight(node);
+        node.setParent(pivot);
+        updateHeight(node);
+        updateHeight(pivot);
+        updateSize(node);
+        updateSize(pivot);
+        return pivot;
+    }
+
+    // helper method to hang replacement where node used to hang
+    private void replaceChild(BSTreeNode<E> node, BSTreeNode<E> replacement) {
+        BSTreeNode<E> parent = node.getParent();
+        replacement.setParent(parent);
+        if (parent == null)
+            root = replacement;
+        else if (parent.getLeft() == node)
+            parent.setLeft(replacement);
+        else
+            parent.setRight(replacement);
+    }
+
+    private void updateHeight(BSTreeNode<E> node) {
+        node.setHeight(AVLBalance.height(height(node.getLeft()), height(node.getRight())));
+    }
+
+    private static int height(BSTreeNode<?> node) {
+        return node == null ? -1 : node.getHeight();
+    }
+}
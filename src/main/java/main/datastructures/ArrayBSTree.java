@@ -0,0 +1,332 @@
+package main.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A self-balancing Binary Search Tree that keeps its nodes in parallel arrays instead of node objects.
+ * A node is an index into the arrays holding the elements, the left and right children, the parents, the heights and
+ * the subtree sizes, so a search reads a few compact arrays instead of following references to nodes spread over the
+ * heap. The tree is balanced like an AVLTree.
+ *
+ * Once the tree is finished, freeze lays its elements out again in Eytzinger order, the order of a breadth-first walk
+ * of a complete tree, where the children of position i are at 2i and 2i + 1. While the tree is frozen, contains,
+ * search, remove, floor, ceiling and getOrAdd of an element already in the tree read that array from the front, so
+ * the top levels every search passes through share a few cache lines. Rank, select and the iterators still walk the
+ * nodes. Adding, removing or replacing an element thaws the tree again.
+ *
+ * @param <E> the generic type of elements in this tree. E must be Comparable.
+ */
+public class ArrayBSTree<E extends Comparable<? super E>> extends IndexedAVLTree<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The capacity of a tree created without one
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] elements;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] height;
+    private int[] subtreeSize;
+
+    /**
+     * The number of indexes in use, removed ones included
+     */
+    private int nodeCount;
+
+    /**
+     * The first index of a removed node, whose left link is the next one
+     */
+    private int free = NIL;
+
+    /**
+     * The elements in Eytzinger order, starting at index 1, or null if the tree is not frozen
+     */
+    private Object[] frozen;
+
+    /**
+     * The node of the element at each position of frozen
+     */
+    private int[] frozenNodes;
+
+    /**
+     * Constructs an empty ArrayBSTree.
+     */
+    public ArrayBSTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ArrayBSTree that can hold the given number of elements before its arrays grow.
+     *
+     * @param capacity the number of elements the tree can hold before it grows
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public ArrayBSTree(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        elements = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        height = new int[capacity];
+        subtreeSize = new int[capacity];
+    }
+
+    /**
+     * Clears the tree, removing all elements.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(elements, 0, nodeCount, null);
+        root = NIL;
+        size = 0;
+        nodeCount = 0;
+        free = NIL;
+        thaw();
+    }
+
+    /**
+     * Returns the element equal to the specified element, adding it first if the tree doesn't contain one.
+     * A frozen tree is searched in the Eytzinger layout first, and thawed if the element is added.
+     *
+     * @param   newEntry the element to look for or add
+     * @return  the element stored in the tree, which is newEntry if it was just added
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public E getOrAdd(E newEntry) throws NullPointerException {
+        if (frozen != null && newEntry != null) {
+            int position = findFrozen(newEntry);
+            if (position != 0)
+                return frozenElement(position);
+        }
+        return element(insert(newEntry));
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the specified element, using the Eytzinger layout when the
+     * tree is frozen.
+     *
+     * @param   entry the element to compare with
+     * @return  the greatest element not greater than entry, or null if there is none
+     */
+    @Override
+    public E floor(E entry) {
+        if (frozen == null)
+            return super.floor(entry);
+        int floor = 0;
+        int position = 1;
+        while (position < frozen.length) {
+            int compare = entry.compareTo(frozenElement(position));
+            if (compare == 0)
+                return frozenElement(position);
+            if (compare > 0)
+                floor = position;
+            position = 2 * position + (compare > 0 ? 1 : 0);
+        }
+        return floor == 0 ? null : frozenElement(floor);
+    }
+
+    /**
+     * Returns the least element greater than or equal to the specified element, using the Eytzinger layout when the
+     * tree is frozen.
+     *
+     * @param   entry the element to compare with
+     * @return  the least element not less than entry, or null if there is none
+     */
+    @Override
+    public E ceiling(E entry) {
+        if (frozen == null)
+            return super.ceiling(entry);
+        int ceiling = 0;
+        int position = 1;
+        while (position < frozen.length) {
+            int compare = entry.compareTo(frozenElement(position));
+            if (compare == 0)
+                return frozenElement(position);
+            if (compare < 0)
+                ceiling = position;
+            position = 2 * position + (compare > 0 ? 1 : 0);
+        }
+        return ceiling == 0 ? null : frozenElement(ceiling);
+    }
+
+    /**
+     * Lays the elements out in Eytzinger order, so that searches are faster until the next element is added.
+     */
+    public void freeze() {
+        Object[] layout = new Object[size + 1];
+        int[] layoutNodes = new int[size + 1];
+        fillEytzinger(layout, layoutNodes, 1, leftmost(root));
+        frozen = layout;
+        frozenNodes = layoutNodes;
+    }
+
+    /**
+     * Checks if the tree is frozen.
+     *
+     * @return true if the tree has been frozen and nothing was added or removed since
+     */
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    // helper method to place the elements at the Eytzinger positions below position, returns the next node in order
+    private int fillEytzinger(Object[] layout, int[] layoutNodes, int position, int node) {
+        if (position >= layout.length)
+            return node;
+        node = fillEytzinger(layout, layoutNodes, 2 * position, node);
+        layout[position] = elements[node];
+        layoutNodes[position] = node;
+        node = successor(node);
+        return fillEytzinger(layout, layoutNodes, 2 * position + 1, node);
+    }
+
+    // a frozen tree finds the node of an element through the Eytzinger layout, which contains, search and remove use
+    @Override
+    int find(E entry) {
+        if (frozen == null)
+            return super.find(entry);
+        int position = findFrozen(entry);
+        return position == 0 ? NIL : frozenNodes[position];
+    }
+
+    // helper method to find the position of the element equal to entry in the Eytzinger layout, or 0 if there is none
+    private int findFrozen(E entry) {
+        int position = 1;
+        while (position < frozen.length) {
+            int compare = entry.compareTo(frozenElement(position));
+            if (compare == 0)
+                return position;
+            position = 2 * position + (compare > 0 ? 1 : 0);
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E frozenElement(int position) {
+        return (E) frozen[position];
+    }
+
+    @Override
+    int newNode(E entry, int parentNode) {
+        thaw();
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (nodeCount == elements.length)
+                grow();
+            node = nodeCount++;
+        }
+        elements[node] = entry;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = parentNode;
+        height[node] = 0;
+        subtreeSize[node] = 1;
+        return node;
+    }
+
+    @Override
+    void moveElement(int from, int to) {
+        elements[to] = elements[from];
+    }
+
+    // the index is put on the free list, to be reused by the next node added
+    @Override
+    void freeNode(int node) {
+        thaw();
+        elements[node] = null;
+        left[node] = free;
+        free = node;
+    }
+
+    private void thaw() {
+        frozen = null;
+        frozenNodes = null;
+    }
+
+    private void grow() {
+        int capacity = elements.length + (elements.length >> 1) + 1;
+        elements = Arrays.copyOf(elements, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        height = Arrays.copyOf(height, capacity);
+        subtreeSize = Arrays.copyOf(subtreeSize, capacity);
+    }
+
+    // the layout of a frozen tree holds the element being replaced, so the tree is thawed
+    @Override
+    void putElement(int node, E element) {
+        thaw();
+        elements[node] = element;
+    }
+
+    @Override
+    int compare(E entry, int node) {
+        return entry.compareTo(element(node));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    E element(int node) {
+        return (E) elements[node];
+    }
+
+    @Override
+    int left(int node) {
+        return left[node];
+    }
+
+    @Override
+    void putLeft(int node, int child) {
+        left[node] = child;
+    }
+
+    @Override
+    int right(int node) {
+        return right[node];
+    }
+
+    @Override
+    void putRight(int node, int child) {
+        right[node] = child;
+    }
+
+    @Override
+    int parent(int node) {
+        return parent[node];
+    }
+
+    @Override
+    void putParent(int node, int parentNode) {
+        parent[node] = parentNode;
+    }
+
+    @Override
+    int storedHeight(int node) {
+        return height[node];
+    }
+
+    @Override
+    void putHeight(int node, int nodeHeight) {
+        height[node] = nodeHeight;
+    }
+
+    @Override
+    int storedSize(int node) {
+        return subtreeSize[node];
+    }
+
+    @Override
+    void putSize(int node, int nodeSize) {
+        subtreeSize[node] = nodeSize;
+    }
+}
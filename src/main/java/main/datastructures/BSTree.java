@@ -3,18 +3,31 @@ package main.datastructures;
 import main.datastructures.interfaces.*;
 import main.exceptions.TreeException;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 
 /**
  * A Binary Search Tree (BST) data structure.
+ * Every node keeps the size of its subtree, so rank and select take time in proportion to the height of the tree.
  *
  * @param <E> the generic type of elements in this tree. E must be Comparable.
  */
 public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
 
-    private BSTreeNode<E> root;
-    private int size;
+    /**
+     * The serial version of the original BSTree as WordTracker.jar has it, built for Java 8, whose serialized form is
+     * unchanged
+     */
+    private static final long serialVersionUID = -2547629611234994970L;
+
+    protected BSTreeNode<E> root;
+    protected int size;
 
     /**
      * Constructs an empty BSTree.
@@ -24,6 +37,50 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         size = 0;
     }
 
+    /**
+     * Builds a perfectly balanced tree from elements that are already in ascending order, in linear time.
+     *
+     * @param   sorted the elements in strictly ascending order
+     * @param   <E> the type of elements in the tree
+     * @return  a tree holding the elements
+     * @throws  IllegalArgumentException if the elements are not in strictly ascending order
+     */
+    public static <E extends Comparable<? super E>> BSTree<E> buildFromSorted(List<? extends E> sorted) {
+        BSTree<E> tree = new BSTree<>();
+        tree.fillFromSorted(sorted);
+        return tree;
+    }
+
+    /**
+     * Replaces the contents of this tree with a perfectly balanced tree of elements that are already in
+     * ascending order. Every node gets its subtree height, so the result is also a valid AVLTree.
+     *
+     * @param   sorted the elements in strictly ascending order
+     * @throws  IllegalArgumentException if the elements are not in strictly ascending order
+     */
+    protected void fillFromSorted(List<? extends E> sorted) {
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i - 1).compareTo(sorted.get(i)) >= 0)
+                throw new IllegalArgumentException("Elements are not in strictly ascending order at index " + i);
+        }
+        root = build(sorted, 0, sorted.size(), null);
+        size = sorted.size();
+    }
+
+    // helper method to link the middle element above the balanced subtrees of each half, recursing log n deep
+    private BSTreeNode<E> build(List<? extends E> sorted, int from, int to, BSTreeNode<E> parent) {
+        if (from >= to)
+            return null;
+        int middle = (from + to) >>> 1;
+        BSTreeNode<E> node = new BSTreeNode<>(sorted.get(middle), parent);
+        node.setLeft(build(sorted, from, middle, node));
+        node.setRight(build(sorted, middle + 1, to, node));
+        // the left half is never smaller than the right half, so it is the taller one
+        node.setHeight(node.getLeft() == null ? 0 : node.getLeft().getHeight() + 1);
+        node.setSize(to - from);
+        return node;
+    }
+
     /**
      * Returns the root of the tree.
      *
@@ -47,14 +104,23 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         return getHeight(root);
     }
 
-    // helper method to calculate height
-    private int getHeight(BSTreeNode<E> node) {
-        if (node == null) {
-            return -1;
+    // helper method to calculate height, walks the tree level by level so deep trees can't overflow the stack
+    static <E extends Comparable<? super E>> int getHeight(BSTreeNode<E> node) {
+        int height = -1;
+        Deque<BSTreeNode<E>> level = new ArrayDeque<>();
+        if (node != null)
+            level.add(node);
+        while (!level.isEmpty()) {
+            height++;
+            for (int i = level.size(); i > 0; i--) {
+                BSTreeNode<E> current = level.poll();
+                if (current.getLeft() != null)
+                    level.add(current.getLeft());
+                if (current.getRight() != null)
+                    level.add(current.getRight());
+            }
         }
-        int leftHeight = getHeight(node.getLeft());
-        int rightHeight = getHeight(node.getRight());
-        return Math.max(leftHeight, rightHeight) + 1;
+        return height;
     }
 
     /**
@@ -112,17 +178,18 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
         return search(root, entry);
     }
 
-    // helper method for recursive search
+    // helper method for iterative search
     private BSTreeNode<E> search(BSTreeNode<E> node, E entry) {
-        if (node == null)
-            return null;
-        int compare = entry.compareTo(node.getElement());
-        if (compare < 0)
-            return search(node.getLeft(), entry);
-        else if (compare > 0)
-            return search(node.getRight(), entry);
-        else
-            return node;
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare < 0)
+                node = node.getLeft();
+            else if (compare > 0)
+                node = node.getRight();
+            else
+                return node;
+        }
+        return null;
     }
 
     /**
@@ -134,27 +201,250 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public boolean add(E newEntry) throws NullPointerException {
-        if (newEntry == null)
+        int oldSize = size;
+        insert(newEntry);
+        return size != oldSize;
+    }
+
+    /**
+     * Returns the element equal to the specified element, adding it first if the tree doesn't contain one.
+     *
+     * @param   newEntry the element to look for or add
+     * @return  the element stored in the tree, which is newEntry if it was just added
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public E getOrAdd(E newEntry) throws NullPointerException {
+        return insert(newEntry).getElement();
+    }
+
+    // helper method for iterative add, descends once and returns the node holding an equal element or the new node
+    private BSTreeNode<E> insert(E entry) {
+        if (entry == null)
             throw new NullPointerException("Cannot add null to a tree");
-        if (contains(newEntry))
-            return false;
-        root = add(root, newEntry);
+        BSTreeNode<E> node = root;
+        if (node == null) {
+            root = new BSTreeNode<>(entry, null);
+            size++;
+            return root;
+        }
+        int compare;
+        while (true) {
+            compare = entry.compareTo(node.getElement());
+            if (compare == 0)
+                return node;
+            BSTreeNode<E> next = compare < 0 ? node.getLeft() : node.getRight();
+            if (next == null)
+                break;
+            node = next;
+        }
+        BSTreeNode<E> newNode = new BSTreeNode<>(entry, node);
+        if (compare < 0)
+            node.setLeft(newNode);
+        else
+            node.setRight(newNode);
         size++;
+        for (BSTreeNode<E> ancestor = node; ancestor != null; ancestor = ancestor.getParent())
+            ancestor.setSize(ancestor.getSize() + 1);
+        afterInsert(newNode);
+        return newNode;
+    }
+
+    /**
+     * Removes the element equal to the specified element from the tree.
+     * A node with two children takes the element of its in-order successor, and the successor's node is unlinked.
+     *
+     * @param   entry the element to remove
+     * @return  true if the element was removed, false if the tree doesn't contain it
+     */
+    @Override
+    public boolean remove(E entry) {
+        BSTreeNode<E> node = search(entry);
+        if (node == null)
+            return false;
+        if (node.getLeft() != null && node.getRight() != null) {
+            BSTreeNode<E> successor = node.getRight();
+            while (successor.getLeft() != null)
+                successor = successor.getLeft();
+            node.setElement(successor.getElement());
+            node = successor;
+        }
+        BSTreeNode<E> child = node.getLeft() != null ? node.getLeft() : node.getRight();
+        BSTreeNode<E> parent = node.getParent();
+        if (child != null)
+            child.setParent(parent);
+        if (parent == null)
+            root = child;
+        else if (parent.getLeft() == node)
+            parent.setLeft(child);
+        else
+            parent.setRight(child);
+        size--;
+        for (BSTreeNode<E> ancestor = parent; ancestor != null; ancestor = ancestor.getParent())
+            ancestor.setSize(ancestor.getSize() - 1);
+        afterRemove(parent);
         return true;
     }
 
-    // helper method for recursive add
-    private BSTreeNode<E> add(BSTreeNode<E> node, E entry) {
-        if (node == null) {
-            return new BSTreeNode<>(entry, null);
+    /**
+     * Returns the greatest element less than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the greatest element not greater than entry, or null if there is none
+     */
+    @Override
+    public E floor(E entry) {
+        return floor(root, entry);
+    }
+
+    // helper method to find the floor below the given root, shared with the other tree implementations in this package
+    static <E extends Comparable<? super E>> E floor(BSTreeNode<E> node, E entry) {
+        E floor = null;
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare == 0)
+                return node.getElement();
+            if (compare < 0) {
+                node = node.getLeft();
+            } else {
+                floor = node.getElement();
+                node = node.getRight();
+            }
         }
-        int compare = entry.compareTo(node.getElement());
-        if (compare < 0) {
-            node.setLeft(add(node.getLeft(), entry));
-        } else if (compare > 0) {
-            node.setRight(add(node.getRight(), entry));
+        return floor;
+    }
+
+    /**
+     * Returns the least element greater than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the least element not less than entry, or null if there is none
+     */
+    @Override
+    public E ceiling(E entry) {
+        return ceiling(root, entry);
+    }
+
+    // helper method to find the ceiling below the given root, shared with the other tree implementations in this
+    // package
+    static <E extends Comparable<? super E>> E ceiling(BSTreeNode<E> node, E entry) {
+        E ceiling = null;
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare == 0)
+                return node.getElement();
+            if (compare > 0) {
+                node = node.getRight();
+            } else {
+                ceiling = node.getElement();
+                node = node.getLeft();
+            }
         }
-        return node;
+        return ceiling;
+    }
+
+    /**
+     * Returns the number of elements less than the specified element, using the subtree sizes.
+     *
+     * @param   entry the element to compare with
+     * @return  the number of elements less than entry
+     */
+    @Override
+    public int rank(E entry) {
+        int rank = 0;
+        BSTreeNode<E> node = root;
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare <= 0) {
+                if (compare == 0)
+                    return rank + size(node.getLeft());
+                node = node.getLeft();
+            } else {
+                rank += size(node.getLeft()) + 1;
+                node = node.getRight();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the element at the specified index of the in-order sequence, using the subtree sizes.
+     *
+     * @param   index the number of elements less than the element to return
+     * @return  the element at the index
+     * @throws  IndexOutOfBoundsException if the index is negative or not less than the size of the tree
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        BSTreeNode<E> node = root;
+        while (true) {
+            int leftSize = size(node.getLeft());
+            if (index == leftSize)
+                return node.getElement();
+            if (index < leftSize) {
+                node = node.getLeft();
+            } else {
+                index -= leftSize + 1;
+                node = node.getRight();
+            }
+        }
+    }
+
+    // helper method to get the size of a subtree, 0 for an empty one
+    static int size(BSTreeNode<?> node) {
+        return node == null ? 0 : node.getSize();
+    }
+
+    /**
+     * Reads the tree back and gives every node its height and size, which are not part of the serialized form.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if the class of an element cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // every node is put before its children, so going through the list backwards sees children first
+        List<BSTreeNode<E>> nodes = new ArrayList<>(size);
+        if (root != null)
+            nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            BSTreeNode<E> node = nodes.get(i);
+            if (node.getLeft() != null)
+                nodes.add(node.getLeft());
+            if (node.getRight() != null)
+                nodes.add(node.getRight());
+        }
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            BSTreeNode<E> node = nodes.get(i);
+            int leftHeight = node.getLeft() == null ? -1 : node.getLeft().getHeight();
+            int rightHeight = node.getRight() == null ? -1 : node.getRight().getHeight();
+            node.setHeight(AVLBalance.height(leftHeight, rightHeight));
+            updateSize(node);
+        }
+    }
+
+    // helper method to recount the size of a subtree from its children, after a rotation
+    static void updateSize(BSTreeNode<?> node) {
+        node.setSize(size(node.getLeft()) + size(node.getRight()) + 1);
+    }
+
+    /**
+     * Called after a new leaf has been linked into the tree. Subclasses override this to rebalance.
+     *
+     * @param node the node that was just added
+     */
+    protected void afterInsert(BSTreeNode<E> node) {
+    }
+
+    /**
+     * Called after a node has been unlinked from the tree. Subclasses override this to rebalance.
+     *
+     * @param parent the former parent of the unlinked node, or null if it was the root
+     */
+    protected void afterRemove(BSTreeNode<E> parent) {
     }
 
     /**
@@ -164,13 +454,25 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public Iterator<E> inorderIterator() {
-        return new InOrderIterator();
+        return new InOrderIterator<>(root);
+    }
+
+    // walks nodes and returns their elements, shared with the other tree implementations in this package
+    abstract static class NodeIterator<E extends Comparable<? super E>> implements Iterator<E> {
+
+        // helper method to move on to the next node
+        abstract BSTreeNode<E> nextNode();
+
+        public E next() {
+            return nextNode().getElement();
+        }
     }
 
-    private class InOrderIterator implements Iterator<E> {
+    // walks the subtree below the given root, shared with the other tree implementations in this package
+    static class InOrderIterator<E extends Comparable<? super E>> extends NodeIterator<E> {
         private Stack<BSTreeNode<E>> stack = new Stack<>();
 
-        public InOrderIterator() {
+        InOrderIterator(BSTreeNode<E> root) {
             pushLeft(root);
         }
 
@@ -185,11 +487,62 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
             return !stack.isEmpty();
         }
 
-        public E next() {
+        BSTreeNode<E> nextNode() {
+            if (!hasNext()) throw new NoSuchElementException();
+            BSTreeNode<E> node = stack.pop();
+            pushLeft(node.getRight());
+            return node;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements greater than or equal to from and less than to.
+     * The iterator descends straight to the first element of the range and stops at the end of it.
+     *
+     * @param   from the least element to include, or null to start at the first element
+     * @param   to the element to stop before, or null to go on to the last element
+     * @return  an in-order iterator over the elements of the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E from, E to) {
+        return new RangeIterator<>(root, from, to);
+    }
+
+    // walks the range below the given root, shared with the other tree implementations in this package
+    static class RangeIterator<E extends Comparable<? super E>> extends NodeIterator<E> {
+        private Stack<BSTreeNode<E>> stack = new Stack<>();
+        private final E to;
+
+        RangeIterator(BSTreeNode<E> root, E from, E to) {
+            this.to = to;
+            // only the nodes on the path to the first element that are not before it have to be visited later
+            BSTreeNode<E> node = root;
+            while (node != null) {
+                if (from != null && node.getElement().compareTo(from) < 0) {
+                    node = node.getRight();
+                } else {
+                    stack.push(node);
+                    node = node.getLeft();
+                }
+            }
+        }
+
+        private void pushLeft(BSTreeNode<E> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.getLeft();
+            }
+        }
+
+        public boolean hasNext() {
+            return !stack.isEmpty() && (to == null || stack.peek().getElement().compareTo(to) < 0);
+        }
+
+        BSTreeNode<E> nextNode() {
             if (!hasNext()) throw new NoSuchElementException();
             BSTreeNode<E> node = stack.pop();
             pushLeft(node.getRight());
-            return node.getElement();
+            return node;
         }
     }
 
@@ -200,13 +553,14 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public Iterator<E> preorderIterator() {
-        return new PreOrderIterator();
+        return new PreOrderIterator<>(root);
     }
 
-    private class PreOrderIterator implements Iterator<E> {
+    // walks the subtree below the given root, shared with the other tree implementations in this package
+    static class PreOrderIterator<E extends Comparable<? super E>> extends NodeIterator<E> {
         private Stack<BSTreeNode<E>> stack = new Stack<>();
 
-        public PreOrderIterator() {
+        PreOrderIterator(BSTreeNode<E> root) {
             if (root != null) {
                 stack.push(root);
             }
@@ -216,7 +570,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
             return !stack.isEmpty();
         }
 
-        public E next() {
+        BSTreeNode<E> nextNode() {
             if (!hasNext()) throw new NoSuchElementException();
             BSTreeNode<E> node = stack.pop();
             if (node.getRight() != null) {
@@ -225,7 +579,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
             if (node.getLeft() != null) {
                 stack.push(node.getLeft());
             }
-            return node.getElement();
+            return node;
         }
     }
 
@@ -236,14 +590,15 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
      */
     @Override
     public Iterator<E> postorderIterator() {
-        return new PostOrderIterator();
+        return new PostOrderIterator<>(root);
     }
 
-    private class PostOrderIterator implements Iterator<E> {
+    // walks the subtree below the given root, shared with the other tree implementations in this package
+    static class PostOrderIterator<E extends Comparable<? super E>> extends NodeIterator<E> {
         private Stack<BSTreeNode<E>> stack = new Stack<>();
         private BSTreeNode<E> lastNodeVisited = null;
 
-        public PostOrderIterator() {
+        PostOrderIterator(BSTreeNode<E> root) {
             if (root != null) {
                 stack.push(root);
             }
@@ -253,7 +608,7 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
             return !stack.isEmpty();
         }
 
-        public E next() {
+        BSTreeNode<E> nextNode() {
             if (!hasNext()) throw new NoSuchElementException();
 
             while (true) {
@@ -269,7 +624,9 @@ public class BSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
                         stack.push(top.getRight());
                     }
                 } else {
-                    return stack.pop().getElement();
+                    // the parent has to see this node as the last one visited to tell which side it came back from
+                    lastNodeVisited = stack.pop();
+                    return lastNodeVisited;
                 }
                 lastNodeVisited = top;
             }
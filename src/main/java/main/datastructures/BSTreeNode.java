@@ -5,15 +5,26 @@ import java.io.Serializable;
 /**
  * Represents a node in a Binary Search Tree (BST).
  * Each node contains an element of type E, a reference to a parent node,
- * and references to the left and right child nodes.
+ * and references to the left and right child nodes. Self-balancing trees
+ * also keep the height of the subtree rooted at each node, and BSTree keeps
+ * the number of nodes in it.
  *
  * @param <E> the generic element held in a node. E must be Comparable.
  */
 public class BSTreeNode<E extends Comparable<? super E>> implements Serializable {
+
+    /**
+     * The serial version of the original BSTreeNode. The height and size are left out of the serialized form,
+     * which stays the same as before nodes kept them, and BSTree works them out again when it is read back.
+     */
+    private static final long serialVersionUID = 7034921382872893380L;
+
     private E element;
     private BSTreeNode<E> left;
     private BSTreeNode<E> right;
     private BSTreeNode<E> parent;
+    private transient int height;
+    private transient int size = 1;
 
     /**
      * Constructs a new BSTreeNode
@@ -99,4 +110,40 @@ public class BSTreeNode<E extends Comparable<? super E>> implements Serializable
     public void setParent(BSTreeNode<E> parent) {
         this.parent = parent;
     }
+
+    /**
+     * Gets the height of the subtree rooted at this node
+     *
+     * @return the height of this node's subtree, 0 for a leaf
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Sets the height of the subtree rooted at this node
+     *
+     * @param height the new height of this node's subtree
+     */
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * Gets the number of nodes in the subtree rooted at this node
+     *
+     * @return the size of this node's subtree, 1 for a leaf
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of nodes in the subtree rooted at this node
+     *
+     * @param size the new size of this node's subtree
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
 }
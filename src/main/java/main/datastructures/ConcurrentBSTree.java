@@ -0,0 +1,510 @@
+package main.datastructures;
+
+import main.datastructures.interfaces.*;
+import main.exceptions.TreeException;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * A Binary Search Tree (BST) that many threads can search and add to at the same time without locking.
+ * A new node is linked in with a compare-and-set on the empty child link of its parent. If another thread
+ * links a node there first, the insertion simply carries on descending from that node.
+ * Searches and iterators never block and see every node that was fully linked before they reached it.
+ * Removing an element marks its node as removed with a compare-and-set instead of unlinking it, and adding an equal
+ * element again fills the same node. Removed nodes stay in the tree and are skipped, so a tree that many elements
+ * are removed from keeps its height.
+ * <p>
+ * <b>This tree is not balanced.</b> Linked nodes never move, so its shape depends on the order elements arrive in.
+ * Elements in random order, such as the words of running text, give a tree of logarithmic height, but elements that
+ * arrive mostly sorted, such as the words of a word list, give a tree as deep as it is large, and every operation
+ * then takes linear time. Use an AVLTree, locked if it must be shared, for input that may be sorted.
+ * ConcurrentBSTreeBenchmark measures both kinds of input.
+ *
+ * @param <E> the generic type of elements in this tree. E must be Comparable.
+ */
+public class ConcurrentBSTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AtomicReference<Node<E>> root;
+    private final LongAdder size;
+
+    /**
+     * Constructs an empty ConcurrentBSTree.
+     */
+    public ConcurrentBSTree() {
+        root = new AtomicReference<>();
+        size = new LongAdder();
+    }
+
+    /**
+     * Returns the root of the tree. Its element may have been removed, in which case it keeps the removed element.
+     *
+     * @return                  the root of the tree
+     * @throws TreeException    if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws TreeException {
+        Node<E> node = root.get();
+        if (node == null)
+            throw new TreeException("Tree is empty!");
+        return node;
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the height of the tree
+     */
+    @Override
+    public int getHeight() {
+        return BSTree.getHeight(root.get());
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     *
+     * @return the number of nodes in the tree
+     */
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size.sum() == 0;
+    }
+
+    /**
+     * Clears the tree, removing all elements. Elements added while the tree is being cleared may be lost.
+     */
+    @Override
+    public void clear() {
+        root.set(null);
+        size.reset();
+    }
+
+    /**
+     * Checks if the tree contains the specified element.
+     *
+     * @param   entry the element to search for
+     * @return  true if the tree contains the element, false otherwise
+     */
+    @Override
+    public boolean contains(E entry) {
+        return search(entry) != null;
+    }
+
+    /**
+     * Returns the node containing the specified element.
+     *
+     * @param   entry the element to search for
+     * @return  the node containing the element, or null if the element is not in the tree
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) {
+        Node<E> node = find(entry);
+        return node == null || node.current() == null ? null : node;
+    }
+
+    // helper method to find the node of an equal element, removed or not
+    private Node<E> find(E entry) {
+        Node<E> node = root.get();
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare < 0)
+                node = node.left;
+            else if (compare > 0)
+                node = node.right;
+            else
+                return node;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new element to the tree.
+     *
+     * @param   newEntry the element to add
+     * @return  true if the element was added, false if the element already exists in the tree
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        if (newEntry == null)
+            throw new NullPointerException("Cannot add null to a tree");
+        return insert(newEntry) == null;
+    }
+
+    /**
+     * Returns the element equal to the specified element, adding it first if the tree doesn't contain one.
+     * When several threads add equal elements at the same time, all of them get the one element that was added.
+     *
+     * @param   newEntry the element to look for or add
+     * @return  the element stored in the tree, which is newEntry if it was just added
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public E getOrAdd(E newEntry) throws NullPointerException {
+        if (newEntry == null)
+            throw new NullPointerException("Cannot add null to a tree");
+        E existing = insert(newEntry);
+        return existing != null ? existing : newEntry;
+    }
+
+    /**
+     * Changes the element equal to the specified key, adding the key first if the tree doesn't contain one.
+     * The element returned by the update replaces the one it was given with a compare-and-set, so an update that
+     * races with another update or a removal of the element is applied again to the element that is there now.
+     * The update may therefore be called more than once, and should not change the element it is given unless the
+     * change is safe to make from several threads at once.
+     *
+     * @param   key the element to look for, added if it is not found
+     * @param   update the function that returns the changed element
+     * @return  the element the update returned
+     * @throws  NullPointerException if the key is null
+     * @throws  IllegalArgumentException if the update returns an element that is not equal to the key
+     */
+    @Override
+    public E compute(E key, UnaryOperator<E> update) throws NullPointerException {
+        if (key == null)
+            throw new NullPointerException("Cannot add null to a tree");
+        while (true) {
+            E element = getOrAdd(key);
+            // nodes are never unlinked, so the node is there unless the tree was cleared
+            Node<E> node = find(key);
+            if (node == null)
+                continue;
+            E updated = update.apply(element);
+            if (updated.compareTo(element) != 0)
+                throw new IllegalArgumentException("An update must not change the order of an element");
+            if (node.replace(element, updated))
+                return updated;
+        }
+    }
+
+    /**
+     * Removes an element from the tree. Its node stays linked and is marked as removed, so removing doesn't block
+     * threads that are searching or adding at the same time.
+     *
+     * @param   entry the element to remove
+     * @return  true if the element was removed, false if the tree doesn't contain it
+     */
+    @Override
+    public boolean remove(E entry) {
+        Node<E> node = find(entry);
+        if (node == null || !node.remove())
+            return false;
+        size.decrement();
+        return true;
+    }
+
+    // helper method for lock-free add, returns the equal element already in the tree, or null once entry is added
+    private E insert(E entry) {
+        Node<E> newNode = null;
+        Node<E> node = root.get();
+        if (node == null) {
+            newNode = new Node<>(entry);
+            if (root.compareAndSet(null, newNode)) {
+                size.increment();
+                return null;
+            }
+            node = root.get();
+        }
+        while (true) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare == 0) {
+                E existing = node.putIfRemoved(entry);
+                if (existing == null)
+                    size.increment();
+                return existing;
+            }
+            Node<E> next = compare < 0 ? node.left : node.right;
+            if (next == null) {
+                if (newNode == null)
+                    newNode = new Node<>(entry);
+                newNode.setParent(node);
+                if (compare < 0 ? node.casLeft(newNode) : node.casRight(newNode)) {
+                    size.increment();
+                    return null;
+                }
+                // another thread linked a node here first, keep descending from it
+                next = compare < 0 ? node.left : node.right;
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the greatest element not greater than entry, or null if there is none
+     */
+    @Override
+    public E floor(E entry) {
+        // the floor of a removed element is the floor of the elements before it
+        for (Node<E> node = floorNode(entry, true); node != null; node = floorNode(node.getElement(), false)) {
+            E element = node.current();
+            if (element != null)
+                return element;
+        }
+        return null;
+    }
+
+    // helper method to find the node of the greatest element less than entry, or equal to it if inclusive
+    private Node<E> floorNode(E entry, boolean inclusive) {
+        Node<E> floor = null;
+        Node<E> node = root.get();
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare == 0 && inclusive)
+                return node;
+            if (compare <= 0) {
+                node = node.left;
+            } else {
+                floor = node;
+                node = node.right;
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the least element greater than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the least element not less than entry, or null if there is none
+     */
+    @Override
+    public E ceiling(E entry) {
+        // the ceiling of a removed element is the ceiling of the elements after it
+        for (Node<E> node = ceilingNode(entry, true); node != null; node = ceilingNode(node.getElement(), false)) {
+            E element = node.current();
+            if (element != null)
+                return element;
+        }
+        return null;
+    }
+
+    // helper method to find the node of the least element greater than entry, or equal to it if inclusive
+    private Node<E> ceilingNode(E entry, boolean inclusive) {
+        Node<E> ceiling = null;
+        Node<E> node = root.get();
+        while (node != null) {
+            int compare = entry.compareTo(node.getElement());
+            if (compare == 0 && inclusive)
+                return node;
+            if (compare >= 0) {
+                node = node.right;
+            } else {
+                ceiling = node;
+                node = node.left;
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Returns an iterator over the elements greater than or equal to from and less than to.
+     * The iterator descends straight to the first element of the range and stops at the end of it.
+     *
+     * @param   from the least element to include, or null to start at the first element
+     * @param   to the element to stop before, or null to go on to the last element
+     * @return  an in-order iterator over the elements of the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E from, E to) {
+        return new LiveIterator<>(new BSTree.RangeIterator<>(root.get(), from, to));
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in in-order sequence.
+     *
+     * @return an in-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new LiveIterator<>(new BSTree.InOrderIterator<>(root.get()));
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in pre-order sequence.
+     *
+     * @return a pre-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new LiveIterator<>(new BSTree.PreOrderIterator<>(root.get()));
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in post-order sequence.
+     *
+     * @return a post-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        return new LiveIterator<>(new BSTree.PostOrderIterator<>(root.get()));
+    }
+
+    /**
+     * An iterator over the elements of the nodes another iterator walks, which skips the removed ones
+     */
+    private static final class LiveIterator<E extends Comparable<? super E>> implements Iterator<E> {
+        private final BSTree.NodeIterator<E> nodes;
+        private E next;
+
+        private LiveIterator(BSTree.NodeIterator<E> nodes) {
+            this.nodes = nodes;
+        }
+
+        public boolean hasNext() {
+            while (next == null && nodes.hasNext())
+                next = ((Node<E>) nodes.nextNode()).current();
+            return next != null;
+        }
+
+        public E next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            E element = next;
+            next = null;
+            return element;
+        }
+    }
+
+    /**
+     * The state of a node whose element was removed, which keeps the element to find its way down the tree
+     */
+    private static final class Removed implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Object element;
+
+        private Removed(Object element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * A node whose child links can be read and set safely from several threads.
+     * Its children are kept in volatile fields in place of the ones inherited from BSTreeNode, and so is its
+     * element, which is either the element or, once it is removed, a Removed state holding it. The inherited fields
+     * are left empty, so the volatile fields are the only copy.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class Node<E extends Comparable<? super E>> extends BSTreeNode<E> {
+        private static final long serialVersionUID = 1L;
+
+        private static final AtomicReferenceFieldUpdater<Node, Node> LEFT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "left");
+        private static final AtomicReferenceFieldUpdater<Node, Node> RIGHT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "right");
+        private static final AtomicReferenceFieldUpdater<Node, Object> STATE =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "state");
+
+        private volatile Node<E> left;
+        private volatile Node<E> right;
+        private volatile Object state;
+
+        private Node(E element) {
+            super(null, null);
+            state = element;
+        }
+
+        // helper method to get the element, or null if it was removed
+        private E current() {
+            Object current = state;
+            return current instanceof Removed ? null : (E) current;
+        }
+
+        // helper method to mark the element as removed, false if it already was
+        private boolean remove() {
+            while (true) {
+                Object current = state;
+                if (current instanceof Removed)
+                    return false;
+                if (STATE.compareAndSet(this, current, new Removed(current)))
+                    return true;
+            }
+        }
+
+        // helper method to put an updated element in place of the one it was made from, false if that element was
+        // replaced or removed since
+        private boolean replace(E element, E updated) {
+            return STATE.compareAndSet(this, element, updated);
+        }
+
+        // helper method to put an element in place of a removed one, returns the element that wasn't removed or
+        // null once it is put
+        private E putIfRemoved(E element) {
+            while (true) {
+                Object current = state;
+                if (!(current instanceof Removed))
+                    return (E) current;
+                if (STATE.compareAndSet(this, current, element))
+                    return null;
+            }
+        }
+
+        /**
+         * Returns the element of the node, or the removed element if it was removed.
+         *
+         * @return the element of the node
+         */
+        @Override
+        public E getElement() {
+            Object current = state;
+            return (E) (current instanceof Removed ? ((Removed) current).element : current);
+        }
+
+        /**
+         * Replaces the element of the node, putting it back if it was removed.
+         *
+         * @param element the new element of the node
+         */
+        @Override
+        public void setElement(E element) {
+            state = element;
+        }
+
+        private boolean casLeft(Node<E> child) {
+            return LEFT.compareAndSet(this, null, child);
+        }
+
+        private boolean casRight(Node<E> child) {
+            return RIGHT.compareAndSet(this, null, child);
+        }
+
+        @Override
+        public BSTreeNode<E> getLeft() {
+            return left;
+        }
+
+        @Override
+        public void setLeft(BSTreeNode<E> left) {
+            this.left = (Node<E>) left;
+        }
+
+        @Override
+        public BSTreeNode<E> getRight() {
+            return right;
+        }
+
+        @Override
+        public void setRight(BSTreeNode<E> right) {
+            this.right = (Node<E>) right;
+        }
+    }
+}
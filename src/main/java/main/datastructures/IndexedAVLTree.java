@@ -0,0 +1,641 @@
+package main.datastructures;
+
+import main.datastructures.interfaces.*;
+import main.exceptions.TreeException;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The part of a self-balancing Binary Search Tree that is the same for the trees in this package whose nodes are int
+ * ids rather than node objects, ArrayBSTree and OffHeapBSTree. A subclass stores the links, heights and elements of
+ * its nodes however it likes, and this class adds, removes and balances nodes like an AVLTree, walks them, and shows
+ * them as BSTreeNodes. The iterators follow the parent links, so they don't need a stack. Every node keeps the size
+ * of its subtree like a BSTree node does, so floor, ceiling, ranges, rank and select descend the tree once.
+ *
+ * @param <E> the generic type of elements in this tree. E must be Comparable.
+ */
+abstract class IndexedAVLTree<E extends Comparable<? super E>> implements BSTreeADT<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The id of a missing node
+     */
+    static final int NIL = -1;
+
+    int root = NIL;
+    int size;
+
+    // the links, height and element of a node, as the subclass stores them
+    abstract int left(int node);
+
+    abstract void putLeft(int node, int child);
+
+    abstract int right(int node);
+
+    abstract void putRight(int node, int child);
+
+    abstract int parent(int node);
+
+    abstract void putParent(int node, int parent);
+
+    abstract int storedHeight(int node);
+
+    abstract void putHeight(int node, int height);
+
+    // the number of nodes in the subtree of a node, the node included
+    abstract int storedSize(int node);
+
+    abstract void putSize(int node, int size);
+
+    abstract E element(int node);
+
+    // helper method to store an element equal to the one a node holds in its place
+    abstract void putElement(int node, E element);
+
+    abstract int compare(E entry, int node);
+
+    // helper method to store a new leaf with a subtree size of 1, returns its id
+    abstract int newNode(E entry, int parent);
+
+    // helper method to move the element of a node to another node, whose own element is being removed
+    abstract void moveElement(int from, int to);
+
+    // helper method to let go of a node once it is unlinked
+    abstract void freeNode(int node);
+
+    /**
+     * Returns the root of the tree. Its links are followed in the tree when they are asked for.
+     *
+     * @return                  the root of the tree
+     * @throws TreeException    if the tree is empty
+     */
+    @Override
+    public BSTreeNode<E> getRoot() throws TreeException {
+        if (root == NIL)
+            throw new TreeException("Tree is empty!");
+        return new NodeView(root);
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the height of the tree
+     */
+    @Override
+    public int getHeight() {
+        return height(root);
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     *
+     * @return the number of nodes in the tree
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the tree is empty.
+     *
+     * @return true if the tree is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Checks if the tree contains the specified element.
+     *
+     * @param   entry the element to search for
+     * @return  true if the tree contains the element, false otherwise
+     */
+    @Override
+    public boolean contains(E entry) {
+        return find(entry) != NIL;
+    }
+
+    /**
+     * Returns the node containing the specified element. Its links are followed in the tree when they are asked for.
+     *
+     * @param   entry the element to search for
+     * @return  the node containing the element, or null if the element is not in the tree
+     */
+    @Override
+    public BSTreeNode<E> search(E entry) {
+        int node = find(entry);
+        return node == NIL ? null : new NodeView(node);
+    }
+
+    /**
+     * Adds a new element to the tree.
+     *
+     * @param   newEntry the element to add
+     * @return  true if the element was added, false if the element already exists in the tree
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean add(E newEntry) throws NullPointerException {
+        int oldSize = size;
+        insert(newEntry);
+        return size != oldSize;
+    }
+
+    /**
+     * Removes an element from the tree, rebalancing it on the way back up. A node with two children takes the
+     * element of its in-order successor, and the successor's node is unlinked.
+     *
+     * @param   entry the element to remove
+     * @return  true if the element was removed, false if the tree doesn't contain it
+     */
+    @Override
+    public boolean remove(E entry) {
+        int node = find(entry);
+        if (node == NIL)
+            return false;
+        if (left(node) != NIL && right(node) != NIL) {
+            int successor = leftmost(right(node));
+            moveElement(successor, node);
+            node = successor;
+        }
+        int child = left(node) != NIL ? left(node) : right(node);
+        int parentNode = parent(node);
+        if (child != NIL)
+            replaceChild(node, child);
+        else if (parentNode == NIL)
+            root = NIL;
+        else if (left(parentNode) == node)
+            putLeft(parentNode, NIL);
+        else
+            putRight(parentNode, NIL);
+        freeNode(node);
+        size--;
+        for (int ancestor = parentNode; ancestor != NIL; ancestor = parent(ancestor))
+            putSize(ancestor, storedSize(ancestor) - 1);
+        rebalance(parentNode);
+        return true;
+    }
+
+    // helper method to find the id of the node holding an element equal to entry
+    int find(E entry) {
+        int node = root;
+        while (node != NIL) {
+            int compare = compare(entry, node);
+            if (compare < 0)
+                node = left(node);
+            else if (compare > 0)
+                node = right(node);
+            else
+                return node;
+        }
+        return NIL;
+    }
+
+    // helper method for iterative add, descends once and returns the id of the node holding an equal element or the
+    // new node
+    int insert(E entry) {
+        if (entry == null)
+            throw new NullPointerException("Cannot add null to a tree");
+        if (root == NIL) {
+            root = newNode(entry, NIL);
+            size++;
+            return root;
+        }
+        int node = root;
+        int compare;
+        while (true) {
+            compare = compare(entry, node);
+            if (compare == 0)
+                return node;
+            int next = compare < 0 ? left(node) : right(node);
+            if (next == NIL)
+                break;
+            node = next;
+        }
+        int newNode = newNode(entry, node);
+        if (compare < 0)
+            putLeft(node, newNode);
+        else
+            putRight(node, newNode);
+        size++;
+        for (int ancestor = node; ancestor != NIL; ancestor = parent(ancestor))
+            putSize(ancestor, storedSize(ancestor) + 1);
+        rebalance(node);
+        return newNode;
+    }
+
+    // walks from node towards the root, fixing heights and rotating unbalanced nodes, as AVLTree does
+    private void rebalance(int node) {
+        while (node != NIL) {
+            int oldHeight = height(node);
+            updateHeight(node);
+            int leftHeight = height(left(node));
+            int rightHeight = height(right(node));
+            if (AVLBalance.leansLeft(leftHeight, rightHeight)) {
+                if (AVLBalance.needsDoubleRotation(height(left(left(node))), height(right(left(node)))))
+                    rotateLeft(left(node));
+                node = rotateRight(node);
+            } else if (AVLBalance.leansRight(leftHeight, rightHeight)) {
+                if (AVLBalance.needsDoubleRotation(height(right(right(node))), height(left(right(node)))))
+                    rotateRight(right(node));
+                node = rotateLeft(node);
+            }
+            // nothing above this subtree changes once its height is back to what it was
+            if (height(node) == oldHeight)
+                return;
+            node = parent(node);
+        }
+    }
+
+    // helper method to rotate the subtree rooted at node to the left, returns the new subtree root
+    private int rotateLeft(int node) {
+        int pivot = right(node);
+        int pivotLeft = left(pivot);
+        putRight(node, pivotLeft);
+        if (pivotLeft != NIL)
+            putParent(pivotLeft, node);
+        replaceChild(node, pivot);
+        putLeft(pivot, node);
+        putParent(node, pivot);
+        updateHeight(node);
+        updateHeight(pivot);
+        updateSize(node);
+        updateSize(pivot);
+        return pivot;
+    }
+
+    // helper method to rotate the subtree rooted at node to the right, returns the new subtree root
+    private int rotateRight(int node) {
+        int pivot = left(node);
+        int pivotRight = right(pivot);
+        putLeft(node, pivotRight);
+        if (pivotRight != NIL)
+            putParent(pivotRight, node);
+        replaceChild(node, pivot);
+        putRight(pivot, node);
+        putParent(node, pivot);
+        updateHeight(node);
+        updateHeight(pivot);
+        updateSize(node);
+        updateSize(pivot);
+        return pivot;
+    }
+
+    // helper method to hang replacement where node used to hang
+    private void replaceChild(int node, int replacement) {
+        int parentNode = parent(node);
+        putParent(replacement, parentNode);
+        if (parentNode == NIL)
+            root = replacement;
+        else if (left(parentNode) == node)
+            putLeft(parentNode, replacement);
+        else
+            putRight(parentNode, replacement);
+    }
+
+    private void updateHeight(int node) {
+        putHeight(node, AVLBalance.height(height(left(node)), height(right(node))));
+    }
+
+    int height(int node) {
+        return node == NIL ? -1 : storedHeight(node);
+    }
+
+    // helper method to recount the size of a subtree from its children, after a rotation
+    private void updateSize(int node) {
+        putSize(node, subtreeSize(left(node)) + subtreeSize(right(node)) + 1);
+    }
+
+    private int subtreeSize(int node) {
+        return node == NIL ? 0 : storedSize(node);
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the greatest element not greater than entry, or null if there is none
+     */
+    @Override
+    public E floor(E entry) {
+        int floor = NIL;
+        int node = root;
+        while (node != NIL) {
+            int compare = compare(entry, node);
+            if (compare == 0)
+                return element(node);
+            if (compare < 0) {
+                node = left(node);
+            } else {
+                floor = node;
+                node = right(node);
+            }
+        }
+        return floor == NIL ? null : element(floor);
+    }
+
+    /**
+     * Returns the least element greater than or equal to the specified element, descending the tree once.
+     *
+     * @param   entry the element to compare with
+     * @return  the least element not less than entry, or null if there is none
+     */
+    @Override
+    public E ceiling(E entry) {
+        int node = ceilingNode(entry);
+        return node == NIL ? null : element(node);
+    }
+
+    // helper method to find the node of the least element greater than or equal to entry
+    private int ceilingNode(E entry) {
+        int ceiling = NIL;
+        int node = root;
+        while (node != NIL) {
+            int compare = compare(entry, node);
+            if (compare == 0)
+                return node;
+            if (compare > 0) {
+                node = right(node);
+            } else {
+                ceiling = node;
+                node = left(node);
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * Returns the number of elements less than the specified element, using the subtree sizes.
+     *
+     * @param   entry the element to compare with
+     * @return  the number of elements less than entry
+     */
+    @Override
+    public int rank(E entry) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            int compare = compare(entry, node);
+            if (compare <= 0) {
+                if (compare == 0)
+                    return rank + subtreeSize(left(node));
+                node = left(node);
+            } else {
+                rank += subtreeSize(left(node)) + 1;
+                node = right(node);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the element at the specified index of the in-order sequence, using the subtree sizes.
+     *
+     * @param   index the number of elements less than the element to return
+     * @return  the element at the index
+     * @throws  IndexOutOfBoundsException if the index is negative or not less than the size of the tree
+     */
+    @Override
+    public E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        int node = root;
+        while (true) {
+            int leftSize = subtreeSize(left(node));
+            if (index == leftSize)
+                return element(node);
+            if (index < leftSize) {
+                node = left(node);
+            } else {
+                index -= leftSize + 1;
+                node = right(node);
+            }
+        }
+    }
+
+    int leftmost(int node) {
+        if (node == NIL)
+            return NIL;
+        while (left(node) != NIL)
+            node = left(node);
+        return node;
+    }
+
+    // helper method to find the next node in order
+    int successor(int node) {
+        if (right(node) != NIL)
+            return leftmost(right(node));
+        int parentNode = parent(node);
+        while (parentNode != NIL && right(parentNode) == node) {
+            node = parentNode;
+            parentNode = parent(node);
+        }
+        return parentNode;
+    }
+
+    // helper method to find the first node of a subtree in post-order, the leaf reached by preferring left children
+    private int firstPostorder(int node) {
+        if (node == NIL)
+            return NIL;
+        while (true) {
+            if (left(node) != NIL)
+                node = left(node);
+            else if (right(node) != NIL)
+                node = right(node);
+            else
+                return node;
+        }
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in in-order sequence.
+     *
+     * @return an in-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> inorderIterator() {
+        return new NodeIterator(leftmost(root)) {
+            @Override
+            int successor(int node) {
+                return IndexedAVLTree.this.successor(node);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the elements greater than or equal to from and less than to.
+     * The iterator descends straight to the first element of the range and stops at the end of it.
+     *
+     * @param   from the least element to include, or null to start at the first element
+     * @param   to the element to stop before, or null to go on to the last element
+     * @return  an in-order iterator over the elements of the range
+     */
+    @Override
+    public Iterator<E> rangeIterator(E from, E to) {
+        return new NodeIterator(before(from == null ? leftmost(root) : ceilingNode(from), to)) {
+            @Override
+            int successor(int node) {
+                return before(IndexedAVLTree.this.successor(node), to);
+            }
+        };
+    }
+
+    // helper method to end a range at the first node that isn't less than to
+    private int before(int node, E to) {
+        return node == NIL || to == null || compare(to, node) > 0 ? node : NIL;
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in pre-order sequence.
+     *
+     * @return a pre-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> preorderIterator() {
+        return new NodeIterator(root) {
+            @Override
+            int successor(int node) {
+                if (left(node) != NIL)
+                    return left(node);
+                if (right(node) != NIL)
+                    return right(node);
+                // climb until a parent has a right subtree that hasn't been visited yet
+                int parentNode = parent(node);
+                while (parentNode != NIL && (right(parentNode) == node || right(parentNode) == NIL)) {
+                    node = parentNode;
+                    parentNode = parent(node);
+                }
+                return parentNode == NIL ? NIL : right(parentNode);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator for traversing the tree in post-order sequence.
+     *
+     * @return a post-order iterator over the tree elements
+     */
+    @Override
+    public Iterator<E> postorderIterator() {
+        return new NodeIterator(firstPostorder(root)) {
+            @Override
+            int successor(int node) {
+                int parentNode = parent(node);
+                if (parentNode != NIL && left(parentNode) == node && right(parentNode) != NIL)
+                    return firstPostorder(right(parentNode));
+                return parentNode;
+            }
+        };
+    }
+
+    /**
+     * An iterator that steps from node to node
+     */
+    private abstract class NodeIterator implements Iterator<E> {
+        private int next;
+
+        NodeIterator(int first) {
+            next = first;
+        }
+
+        abstract int successor(int node);
+
+        @Override
+        public boolean hasNext() {
+            return next != NIL;
+        }
+
+        @Override
+        public E next() throws NoSuchElementException {
+            if (!hasNext()) throw new NoSuchElementException();
+            int node = next;
+            next = successor(node);
+            return element(node);
+        }
+    }
+
+    /**
+     * A node of the tree shown as a BSTreeNode. Its element and links are read from the tree each time they are
+     * asked for, so it follows the node while the tree changes shape, until the node is removed. Its element can be
+     * replaced by an equal one, but its links cannot be set, since the tree links its own nodes.
+     */
+    private final class NodeView extends BSTreeNode<E> {
+        private static final long serialVersionUID = 1L;
+
+        private final int node;
+
+        private NodeView(int node) {
+            super(null, null);
+            this.node = node;
+        }
+
+        private BSTreeNode<E> view(int other) {
+            return other == NIL ? null : new NodeView(other);
+        }
+
+        @Override
+        public E getElement() {
+            return element(node);
+        }
+
+        @Override
+        public void setElement(E element) {
+            if (compare(element, node) != 0)
+                throw new IllegalArgumentException("A node can only hold an element equal to its own");
+            putElement(node, element);
+        }
+
+        @Override
+        public BSTreeNode<E> getLeft() {
+            return view(left(node));
+        }
+
+        @Override
+        public void setLeft(BSTreeNode<E> left) {
+            throw new UnsupportedOperationException("The links of a tree node cannot be set");
+        }
+
+        @Override
+        public BSTreeNode<E> getRight() {
+            return view(right(node));
+        }
+
+        @Override
+        public void setRight(BSTreeNode<E> right) {
+            throw new UnsupportedOperationException("The links of a tree node cannot be set");
+        }
+
+        @Override
+        public BSTreeNode<E> getParent() {
+            return view(parent(node));
+        }
+
+        @Override
+        public void setParent(BSTreeNode<E> parent) {
+            throw new UnsupportedOperationException("The links of a tree node cannot be set");
+        }
+
+        @Override
+        public int getHeight() {
+            return height(node);
+        }
+
+        @Override
+        public void setHeight(int height) {
+            throw new UnsupportedOperationException("The height of a tree node cannot be set");
+        }
+
+        @Override
+        public int getSize() {
+            return subtreeSize(node);
+        }
+
+        @Override
+        public void setSize(int size) {
+            throw new UnsupportedOperationException("The size of a tree node cannot be set");
+        }
+    }
+}
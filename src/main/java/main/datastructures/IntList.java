@@ -0,0 +1,176 @@
+package main.datastructures;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints. Unlike a List of Integers, the values are kept in one int array, so a value
+ * costs 4 bytes instead of a reference to a separate Integer object, and reading a value never boxes it.
+ */
+public class IntList implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The capacity of a list created without one
+     */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty IntList.
+     */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty IntList that can hold the given number of values before it grows.
+     *
+     * @param capacity the number of values the list can hold before it grows
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public IntList(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        values = new int[capacity];
+    }
+
+    /**
+     * Adds a value to the end of the list.
+     *
+     * @param value the value to add
+     */
+    public void add(int value) {
+        if (size == values.length)
+            grow(size + 1);
+        values[size++] = value;
+    }
+
+    /**
+     * Adds all the values of another list to the end of this one.
+     *
+     * @param other the list whose values are added
+     */
+    public void addAll(IntList other) {
+        if (size + other.size > values.length)
+            grow(size + other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index the index of the value
+     * @return the value at the index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the number of values in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     *
+     * @return true if the list is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value from the list, keeping its capacity so it can be filled again without growing.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns a copy of the values in the list.
+     *
+     * @return an array holding the values in order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Sorts the values of the list into ascending order.
+     */
+    public void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Shrinks the capacity of the list to its size, releasing the unused part of the array.
+     */
+    public void trimToSize() {
+        if (values.length > size)
+            values = Arrays.copyOf(values, size);
+    }
+
+    // grows the array by half, or more if needed, so adding one value at a time takes amortized constant time
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, values.length + (values.length >> 1) + 1);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Checks if another object is an IntList holding the same values in the same order.
+     *
+     * @param other the object to compare with
+     * @return true if the lists hold the same values
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof IntList))
+            return false;
+        IntList list = (IntList) other;
+        if (size != list.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (values[i] != list.values[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code computed from the values in the list.
+     *
+     * @return the hash code of the list
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+            hash = 31 * hash + values[i];
+        return hash;
+    }
+
+    /**
+     * Returns the values in the list, in the same form as a List of Integers.
+     *
+     * @return the values as a string
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
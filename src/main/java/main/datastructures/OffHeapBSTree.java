@@ -0,0 +1,322 @@
+package main.datastructures;
+
+import main.datastructures.interfaces.*;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * A self-balancing Binary Search Tree that keeps its nodes and elements outside the Java heap, in direct buffers.
+ * A node is a fixed-size record holding the ids of its left child, right child and parent, its height, the size of
+ * its subtree and where its element's bytes are. The elements are converted to bytes by a Codec, so the garbage
+ * collector never sees them and the heap doesn't have to grow with the tree. The tree is balanced like an AVLTree.
+ *
+ * Elements are copied into the tree, so the elements returned by getOrAdd, search and the iterators are new copies;
+ * changing them doesn't change the tree, and compute is how a stored element is changed. The record of a removed node
+ * is reused by the next node added, but the bytes of removed and replaced elements, like the rest of the memory, are
+ * only given back when the tree is cleared or garbage collected. Direct memory is limited by the
+ * -XX:MaxDirectMemorySize JVM option. A serialized tree holds its codec and its elements in order, so both have to
+ * be Serializable.
+ *
+ * @param <E> the generic type of elements in this tree. E must be Comparable.
+ */
+public class OffHeapBSTree<E extends Comparable<? super E>> extends IndexedAVLTree<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The positions of the fields of a node record, and its size
+     */
+    private static final int LEFT = 0, RIGHT = 4, PARENT = 8, HEIGHT = 12, KEY_OFFSET = 16, KEY_LENGTH = 24,
+            SIZE = 28, NODE_SIZE = 32;
+
+    /**
+     * The direct buffers memory is taken from are 2^24 bytes, so no single allocation is large
+     */
+    private static final int SEGMENT_BITS = 24;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final Codec<E> codec;
+    private transient Arena nodes = new Arena();
+    private transient Arena keys = new Arena();
+
+    /**
+     * The number of node records, removed ones included
+     */
+    private transient int nodeCount;
+
+    /**
+     * The first record of a removed node, whose left link is the next one
+     */
+    private transient int free = NIL;
+
+    /**
+     * Constructs an empty OffHeapBSTree.
+     *
+     * @param codec the codec that converts elements to and from bytes
+     */
+    public OffHeapBSTree(Codec<E> codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Clears the tree, removing all elements and letting go of its memory.
+     */
+    @Override
+    public void clear() {
+        nodes.clear();
+        keys.clear();
+        root = NIL;
+        size = 0;
+        nodeCount = 0;
+        free = NIL;
+    }
+
+    /**
+     * Returns a copy of the element equal to the specified element, adding a copy of it first if the tree doesn't
+     * contain one.
+     *
+     * @param   newEntry the element to look for or add
+     * @return  a copy of the element stored in the tree
+     * @throws  NullPointerException if the specified element is null
+     */
+    @Override
+    public E getOrAdd(E newEntry) throws NullPointerException {
+        return element(insert(newEntry));
+    }
+
+    /**
+     * Changes the element equal to the key, adding a copy of the key first if the tree doesn't contain one.
+     * The update is given a copy of the stored element, and the element it returns is stored in its place, over the
+     * bytes of the old one if it fits.
+     *
+     * @param   key the element to look for or add
+     * @param   update the function that returns the changed element
+     * @return  the element the update returned, which is not part of the tree
+     * @throws  NullPointerException if the key is null
+     * @throws  IllegalArgumentException if the update returns an element that is not equal to the key
+     */
+    @Override
+    public E compute(E key, UnaryOperator<E> update) throws NullPointerException {
+        int node = insert(key);
+        E updated = update.apply(element(node));
+        if (compare(updated, node) != 0)
+            throw new IllegalArgumentException("An update must not change the order of an element");
+        putElement(node, updated);
+        return updated;
+    }
+
+    // helper method to store an element and a leaf node holding it, returns the id of the node
+    @Override
+    int newNode(E entry, int parent) {
+        byte[] bytes = codec.encode(entry);
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = getInt(node, LEFT);
+        } else {
+            if (nodeCount == Integer.MAX_VALUE)
+                throw new IllegalStateException("OffHeapBSTree is full");
+            node = nodeCount++;
+            // node records fill every segment exactly, so record n always starts at n * NODE_SIZE
+            nodes.allocate(NODE_SIZE);
+        }
+        long keyOffset = keys.allocate(bytes.length);
+        keys.put(keyOffset, bytes);
+        putInt(node, LEFT, NIL);
+        putInt(node, RIGHT, NIL);
+        putInt(node, PARENT, parent);
+        putInt(node, HEIGHT, 0);
+        putInt(node, SIZE, 1);
+        nodes.putLong((long) node * NODE_SIZE + KEY_OFFSET, keyOffset);
+        putInt(node, KEY_LENGTH, bytes.length);
+        return node;
+    }
+
+    // the bytes of the element that moves stay where they are, only the node pointing to them changes
+    @Override
+    void moveElement(int from, int to) {
+        nodes.putLong((long) to * NODE_SIZE + KEY_OFFSET, nodes.getLong((long) from * NODE_SIZE + KEY_OFFSET));
+        putInt(to, KEY_LENGTH, getInt(from, KEY_LENGTH));
+    }
+
+    // the record is put on the free list, to be reused by the next node added
+    @Override
+    void freeNode(int node) {
+        putInt(node, LEFT, free);
+        free = node;
+    }
+
+    // helper method to encode an element in place of the one a node holds, over its bytes if it fits
+    @Override
+    void putElement(int node, E element) {
+        byte[] bytes = codec.encode(element);
+        long keyOffset = nodes.getLong((long) node * NODE_SIZE + KEY_OFFSET);
+        if (bytes.length > getInt(node, KEY_LENGTH)) {
+            keyOffset = keys.allocate(bytes.length);
+            nodes.putLong((long) node * NODE_SIZE + KEY_OFFSET, keyOffset);
+        }
+        keys.put(keyOffset, bytes);
+        putInt(node, KEY_LENGTH, bytes.length);
+    }
+
+    @Override
+    int compare(E entry, int node) {
+        long keyOffset = nodes.getLong((long) node * NODE_SIZE + KEY_OFFSET);
+        return codec.compare(entry, keys.segment(keyOffset), Arena.offset(keyOffset), getInt(node, KEY_LENGTH));
+    }
+
+    @Override
+    E element(int node) {
+        long keyOffset = nodes.getLong((long) node * NODE_SIZE + KEY_OFFSET);
+        return codec.decode(keys.segment(keyOffset), Arena.offset(keyOffset), getInt(node, KEY_LENGTH));
+    }
+
+    @Override
+    int left(int node) {
+        return getInt(node, LEFT);
+    }
+
+    @Override
+    void putLeft(int node, int child) {
+        putInt(node, LEFT, child);
+    }
+
+    @Override
+    int right(int node) {
+        return getInt(node, RIGHT);
+    }
+
+    @Override
+    void putRight(int node, int child) {
+        putInt(node, RIGHT, child);
+    }
+
+    @Override
+    int parent(int node) {
+        return getInt(node, PARENT);
+    }
+
+    @Override
+    void putParent(int node, int parent) {
+        putInt(node, PARENT, parent);
+    }
+
+    @Override
+    int storedHeight(int node) {
+        return getInt(node, HEIGHT);
+    }
+
+    @Override
+    void putHeight(int node, int height) {
+        putInt(node, HEIGHT, height);
+    }
+
+    @Override
+    int storedSize(int node) {
+        return getInt(node, SIZE);
+    }
+
+    @Override
+    void putSize(int node, int size) {
+        putInt(node, SIZE, size);
+    }
+
+    private int getInt(int node, int field) {
+        return nodes.getInt((long) node * NODE_SIZE + field);
+    }
+
+    private void putInt(int node, int field, int value) {
+        nodes.putInt((long) node * NODE_SIZE + field, value);
+    }
+
+    // the nodes live in direct buffers, which cannot be serialized, so the elements are written in order instead
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        Iterator<E> iterator = inorderIterator();
+        while (iterator.hasNext())
+            out.writeObject(iterator.next());
+    }
+
+    // helper method to add the serialized elements to new buffers
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        nodes = new Arena();
+        keys = new Arena();
+        root = NIL;
+        size = 0;
+        free = NIL;
+        int count = in.readInt();
+        if (count < 0)
+            throw new InvalidObjectException("Malformed OffHeapBSTree: " + count + " elements");
+        for (int i = 0; i < count; i++)
+            insert((E) in.readObject());
+    }
+
+    /**
+     * Memory taken from direct buffers of SEGMENT_SIZE bytes. An allocation never spans two buffers.
+     */
+    private static final class Arena {
+        private ByteBuffer[] segments = new ByteBuffer[0];
+        private long size;
+
+        // returns the position of length new bytes
+        private long allocate(int length) {
+            if (length > SEGMENT_SIZE)
+                throw new IllegalArgumentException("Element is larger than " + SEGMENT_SIZE + " bytes");
+            long start = size;
+            if ((start & SEGMENT_MASK) + length > SEGMENT_SIZE)
+                start = (start | SEGMENT_MASK) + 1;
+            int segment = (int) (start >>> SEGMENT_BITS);
+            if (segment >= segments.length)
+                segments = Arrays.copyOf(segments, Math.max(segment + 1, segments.length * 2));
+            if (segments[segment] == null)
+                segments[segment] = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+            size = start + length;
+            return start;
+        }
+
+        private ByteBuffer segment(long position) {
+            return segments[(int) (position >>> SEGMENT_BITS)];
+        }
+
+        private static int offset(long position) {
+            return (int) (position & SEGMENT_MASK);
+        }
+
+        private int getInt(long position) {
+            return segment(position).getInt(offset(position));
+        }
+
+        private void putInt(long position, int value) {
+            segment(position).putInt(offset(position), value);
+        }
+
+        private long getLong(long position) {
+            return segment(position).getLong(offset(position));
+        }
+
+        private void putLong(long position, long value) {
+            segment(position).putLong(offset(position), value);
+        }
+
+        private void put(long position, byte[] bytes) {
+            ByteBuffer target = segment(position).duplicate();
+            target.position(offset(position));
+            target.put(bytes);
+        }
+
+        private void clear() {
+            segments = new ByteBuffer[0];
+            size = 0;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package main.datastructures.interfaces;
 
 import java.io.*;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
 
 import main.exceptions.TreeException;
 import main.datastructures.BSTreeNode;
@@ -77,6 +79,169 @@ public interface BSTreeADT<E extends Comparable<? super E>> extends	Serializable
      */
     public boolean add(E newEntry) throws NullPointerException;
 
+    /**
+     * Finds the element stored in the tree that is equal to the given entry,
+     * adding the entry if there is no such element yet. Unlike a search
+     * followed by an add, the tree is only descended once. Trees that keep
+     * copies of their elements return a copy, which has to be changed with
+     * compute instead.
+     * @param newEntry the element to look for, added if it is not found
+     * @return the element stored in the tree after the call, either the one
+     * that was already there or newEntry
+     * @throws NullPointerException if the element being added is null
+     */
+    public E getOrAdd(E newEntry) throws NullPointerException;
+
+    /**
+     * Changes the element stored in the tree that is equal to the given key,
+     * adding the key first if there is no such element yet. The update is
+     * given the stored element, which it may change, and returns the element
+     * to store in its place. The default implementation stores the result in
+     * the node of the element if it is not the element itself; trees that
+     * keep copies of their elements override it to store the result again.
+     * @param key the element to look for, added if it is not found
+     * @param update the function that returns the changed element
+     * @return the element the update returned
+     * @throws NullPointerException if the key is null
+     * @throws IllegalArgumentException if the update returns an element that
+     * is not equal to the key
+     */
+    public default E compute(E key, UnaryOperator<E> update) throws NullPointerException {
+        E element = getOrAdd(key);
+        E updated = update.apply(element);
+        if (updated != element) {
+            if (updated.compareTo(element) != 0)
+                throw new IllegalArgumentException("An update must not change the order of an element");
+            search(key).setElement(updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Removes the element equal to the given entry from the tree, keeping
+     * the remaining elements in their natural order.
+     * @param entry the element to remove from the tree
+     * @return a boolean true if an element was removed, false if the tree
+     * did not contain the element
+     * @throws UnsupportedOperationException if the tree does not support
+     * removing elements
+     */
+    public boolean remove(E entry) throws UnsupportedOperationException;
+
+    /**
+     * Finds the greatest element stored in the tree that is less than or
+     * equal to the given entry. The default implementation walks the tree in
+     * order; trees that can descend straight to the element override it.
+     * @param entry the element to compare with
+     * @return the greatest element not greater than entry, or null if there
+     * is no such element
+     */
+    public default E floor(E entry) {
+        E floor = null;
+        Iterator<E> iterator = inorderIterator();
+        while (iterator.hasNext()) {
+            E element = iterator.next();
+            if (element.compareTo(entry) > 0)
+                break;
+            floor = element;
+        }
+        return floor;
+    }
+
+    /**
+     * Finds the least element stored in the tree that is greater than or
+     * equal to the given entry. The default implementation walks the tree in
+     * order; trees that can descend straight to the element override it.
+     * @param entry the element to compare with
+     * @return the least element not less than entry, or null if there is no
+     * such element
+     */
+    public default E ceiling(E entry) {
+        Iterator<E> iterator = inorderIterator();
+        while (iterator.hasNext()) {
+            E element = iterator.next();
+            if (element.compareTo(entry) >= 0)
+                return element;
+        }
+        return null;
+    }
+
+    /**
+     * Generates an in-order iteration over the elements of the tree that are
+     * greater than or equal to from and less than to. The default
+     * implementation skips the elements before from; trees that can descend
+     * straight to the first element override it.
+     * @param from the least element to include, or null to start at the
+     * first element
+     * @param to the element to stop before, or null to go on to the last
+     * element
+     * @return an iterator with the elements of the range in natural order
+     */
+    public default Iterator<E> rangeIterator(E from, E to) {
+        Iterator<E> iterator = inorderIterator();
+        return new Iterator<E>() {
+            private E next = advance(from == null);
+
+            // helper method to find the next element of the range, skipping the ones before it first
+            private E advance(boolean started) {
+                while (iterator.hasNext()) {
+                    E element = iterator.next();
+                    if (started || element.compareTo(from) >= 0)
+                        return to == null || element.compareTo(to) < 0 ? element : null;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() throws NoSuchElementException {
+                if (next == null)
+                    throw new NoSuchElementException();
+                E element = next;
+                next = advance(true);
+                return element;
+            }
+        };
+    }
+
+    /**
+     * Counts the elements stored in the tree that are less than the given
+     * entry, which is the index the entry has or would have in order. The
+     * default implementation walks the tree in order; trees that keep the
+     * size of every subtree override it.
+     * @param entry the element to compare with
+     * @return the number of elements less than entry
+     */
+    public default int rank(E entry) {
+        int rank = 0;
+        Iterator<E> iterator = inorderIterator();
+        while (iterator.hasNext() && iterator.next().compareTo(entry) < 0)
+            rank++;
+        return rank;
+    }
+
+    /**
+     * Retrieves the element at an index of the natural order of the tree.
+     * The default implementation walks the tree in order; trees that keep
+     * the size of every subtree override it.
+     * @param index the number of elements less than the element to retrieve
+     * @return the element at the index
+     * @throws IndexOutOfBoundsException if the index is negative or not less
+     * than the size of the tree
+     */
+    public default E select(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        Iterator<E> iterator = inorderIterator();
+        for (int i = 0; i < index; i++)
+            iterator.next();
+        return iterator.next();
+    }
+
     /**
      * Generates an in-order iteration over the contents of the tree. Elements
      * are in their natural order.
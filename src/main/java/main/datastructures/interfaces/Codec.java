@@ -0,0 +1,44 @@
+package main.datastructures.interfaces;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Class Description: Converts the elements of a tree to and from bytes, so
+ * that a tree can keep its elements outside the Java heap.
+ *
+ * @param <E> The type of element this codec converts.
+ */
+public interface Codec<E extends Comparable<? super E>>
+{
+    /**
+     * Converts an element to bytes.
+     * @param element the element to convert
+     * @return the bytes of the element
+     */
+    public byte[] encode(E element);
+
+    /**
+     * Converts bytes written by encode back to an element.
+     * @param buffer the buffer holding the bytes, which is not changed
+     * @param offset the position of the first byte in the buffer
+     * @param length the number of bytes
+     * @return a new element equal to the one that was encoded
+     */
+    public E decode(ByteBuffer buffer, int offset, int length);
+
+    /**
+     * Compares an element with the encoded bytes of another element, in the
+     * natural order of the elements. Codecs should override this to compare
+     * without decoding when they can, since a tree calls it at every level.
+     * @param element the element to compare
+     * @param buffer the buffer holding the bytes, which is not changed
+     * @param offset the position of the first byte in the buffer
+     * @param length the number of bytes
+     * @return a negative integer, zero, or a positive integer as the element
+     * is less than, equal to, or greater than the encoded element
+     */
+    public default int compare(E element, ByteBuffer buffer, int offset, int length)
+    {
+        return element.compareTo(decode(buffer, offset, length));
+    }
+}
@@ -1,20 +1,45 @@
 package main.utils;
 
 import main.datastructures.BSTree;
-import main.datastructures.BSTreeNode;
+import main.datastructures.IntList;
+import main.datastructures.interfaces.Iterator;
 
 import java.io.File;
-import java.io.PrintWriter;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * This class writes the reports of a tree of WordNodes to the console or to an output file.
+ * Every report walks the tree in order and writes each word as soon as it is reached, so nothing is copied
+ * out of the tree first and the first line is written right away. The text goes through a ReportWriter, and the
+ * encoded name of each file is kept for the whole report, since it is written again for every word in the file.
+ * Large reports are split into ranges of words by rank, which are rendered on several threads and written out in
+ * order, so the report is the same as one rendered on a single thread.
+ */
 public class BSTreeLogging {
 
+    /**
+     * The number of words in each range of a report that is rendered in parallel
+     */
+    private static final int RANGE_WORDS = 1 << 14;
 
     private final BSTree<WordNode> tree;
     private File outputFile;
-    private PrintWriter writer;
+    private ReportWriter writer;
+
+    /**
+     * The number of threads used to render a report
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
 
     /**
      * Constructor for BSTreeLogging when there is no output file.
@@ -23,6 +48,7 @@ public class BSTreeLogging {
      */
     public BSTreeLogging(BSTree<WordNode> tree) {
         this.tree = tree;
+        this.writer = ReportWriter.toConsole();
     }
 
     /**
@@ -35,7 +61,7 @@ public class BSTreeLogging {
         this.tree = tree;
         this.outputFile = new File(outputFile);
         try {
-            writer = new PrintWriter(outputFile);
+            writer = ReportWriter.toFile(outputFile);
         } catch (Exception e) {
             System.out.println("Error creating output file: " + outputFile);
             System.out.println(e.getMessage());
@@ -44,95 +70,130 @@ public class BSTreeLogging {
     }
 
     /**
-     * In-order traversal to loop through the tree.
-     *
-     * @param node  the current node being visited
-     * @param nodes the list to store the nodes in in-order
+     * Sets the number of threads used to render reports. Reports of more than one range of words are rendered
+     * a range per thread, and the ranges are written out in order.
+     * @param parallelism the number of rendering threads, at least 1
      */
-    private void inOrderTraversal(BSTreeNode<WordNode> node, List<WordNode> nodes) {
-        if (node != null) {
-            inOrderTraversal(node.getLeft(), nodes);
-            nodes.add(node.getElement());
-            inOrderTraversal(node.getRight(), nodes);
-        }
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
     }
 
     /**
      * Prints words in alphabetic order along with the corresponding list of files.
      */
     public void printWordsWithFiles() {
-        List<WordNode> nodes = new ArrayList<>();
-        inOrderTraversal(tree.getRoot(), nodes);
-        for (WordNode node : nodes) {
-            write(node.getWord() + ": ");
-            for (String file : node.getFileLinesMap().keySet()) {
-                write(file + " ");
-            }
-            write("\n");
-        }
+        printReport(null);
     }
 
     /**
      * Prints words in alphabetic order along with the corresponding list of files and line numbers.
      */
     public void printWordsWithLines() {
-        List<WordNode> nodes = new ArrayList<>();
-        inOrderTraversal(tree.getRoot(), nodes);
-        for (WordNode node : nodes) {
-            write(node.getWord() + ": ");
-            for (Map.Entry<String, List<Integer>> entry : node.getFileLinesMap().entrySet()) {
-                String filename = entry.getKey();
-                List<Integer> lineNumbers = entry.getValue();
-                write(filename + " (Lines: ");
-                for (int lineNumber : lineNumbers) {
-                    write(lineNumber + " ");
-                }
-                write(") ");
-            }
-            write("\n");
-        }
+        printReport(" (Lines: ");
     }
 
     /**
      * Prints words in alphabetic order along with the corresponding list of files and line numbers.
      */
     public void printWordsWithLineNumbers() {
-        List<WordNode> nodes = new ArrayList<>();
-        inOrderTraversal(tree.getRoot(), nodes);
-        for (WordNode node : nodes) {
-            write(node.getWord() + ": ");
-            for (Map.Entry<String, List<Integer>> entry : node.getFileLinesMap().entrySet()) {
-                String filename = entry.getKey();
-                List<Integer> lineNumbers = entry.getValue();
-                write(filename + " (Line Numbers: ");
-                for (int lineNumber : lineNumbers) {
-                    write(lineNumber + " ");
-                }
-                write(") ");
-            }
-            write("\n");
-        }
+        printReport(" (Line Numbers: ");
     }
 
     /**
-     * Write to either the output file or the console.
+     * Writes every word with its files, and the line numbers in each file if there is a label for them.
      *
-     * @param log the log to write
+     * @param lineLabel the text between a file name and its line numbers, or null to leave out line numbers
      */
-    private void write(String log) {
-        if (writer != null) {
-            writer.print(log);
-            return;
+    private void printReport(String lineLabel) {
+        try {
+            if (parallelism == 1 || tree.size() <= RANGE_WORDS)
+                render(tree.inorderIterator(), lineLabel, writer);
+            else
+                renderInParallel(lineLabel);
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write report: " + e.getMessage());
+        }
+    }
+
+    // helper method to render ranges of words on a pool of threads and write them out in order. Only a few ranges
+    // per thread are rendered ahead of the one being written, so memory use doesn't grow with the size of the report
+    private void renderInParallel(String lineLabel) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            Deque<Future<List<ByteBuffer>>> rendered = new ArrayDeque<>();
+            for (int start = 0; start < tree.size(); start += RANGE_WORDS) {
+                WordNode from = tree.select(start);
+                WordNode to = start + RANGE_WORDS < tree.size() ? tree.select(start + RANGE_WORDS) : null;
+                rendered.add(executor.submit(() -> {
+                    ReportWriter range = ReportWriter.toMemory();
+                    render(tree.rangeIterator(from, to), lineLabel, range);
+                    return range.takeBlocks();
+                }));
+                if (rendered.size() >= 2 * parallelism)
+                    writer.write(await(rendered.poll()));
+            }
+            while (!rendered.isEmpty())
+                writer.write(await(rendered.poll()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // helper method to write the words of an iterator with their files, and their line numbers if there is a label
+    private static void render(Iterator<WordNode> iterator, String lineLabel, ReportWriter writer) throws IOException {
+        // the encoded file name, followed by the label or a space, for each FileDictionary id
+        byte[][] fileHeaders = new byte[0][];
+        while (iterator.hasNext()) {
+            WordNode node = iterator.next();
+            writer.write(node.getWord());
+            writer.write(": ");
+            for (int i = 0; i < node.getFileCount(); i++) {
+                int fileId = node.getFileId(i);
+                if (fileId >= fileHeaders.length)
+                    fileHeaders = Arrays.copyOf(fileHeaders, Math.max(fileId + 1, fileHeaders.length * 2));
+                if (fileHeaders[fileId] == null)
+                    fileHeaders[fileId] = writer.encode(node.getFilename(i) + (lineLabel != null ? lineLabel : " "));
+                writer.write(fileHeaders[fileId]);
+                if (lineLabel == null)
+                    continue;
+                IntList lineNumbers = node.getLineNumbers(i);
+                for (int j = 0; j < lineNumbers.size(); j++) {
+                    writer.write(lineNumbers.get(j));
+                    writer.write(' ');
+                }
+                writer.write(") ");
+            }
+            writer.write('\n');
+        }
+    }
+
+    // helper method to wait for a range to be rendered, rethrowing its IOException
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Writing the report was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
         }
-        System.out.print(log);
     }
 
     /**
      * Close the output file.
      */
     public void close() {
-        if (writer != null) {
+        try {
             writer.close();
+        } catch (IOException e) {
+            System.err.println("Failed to write report: " + e.getMessage());
+        }
+        if (outputFile != null) {
             System.out.println("Output file written to: " + outputFile.getAbsolutePath());
         }
     }
@@ -0,0 +1,87 @@
+package main.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class gives every file name a small int id, so that WordNodes can refer to the files they occur in by id
+ * instead of each holding the file name. Ids are handed out in the order file names are first seen, starting at 0,
+ * and are only valid while the program runs; the saved repository keeps the file names themselves.
+ * Ids can be looked up from any thread. Looking up the name of an id doesn't lock.
+ */
+public final class FileDictionary {
+
+    /**
+     * The id of every file name
+     */
+    private static final Map<String, Integer> IDS = new HashMap<>();
+
+    /**
+     * The file name of every id, with room for more. The array doubles in size when it is full, and a file name is
+     * stored in it before count is raised to include it, so it can be read without locking.
+     */
+    private static volatile String[] paths = new String[16];
+
+    /**
+     * The number of file names that have an id
+     */
+    private static volatile int count;
+
+    private FileDictionary() {
+    }
+
+    /**
+     * Returns the id of a file name, giving it the next id if it doesn't have one yet.
+     *
+     * @param path the file name
+     * @return the id of the file name
+     */
+    public static synchronized int getId(String path) {
+        Integer id = IDS.get(path);
+        if (id != null)
+            return id;
+        int newId = count;
+        if (newId == paths.length)
+            paths = Arrays.copyOf(paths, 2 * newId);
+        paths[newId] = path;
+        IDS.put(path, newId);
+        // raising count publishes the file name to the readers that don't lock
+        count = newId + 1;
+        return newId;
+    }
+
+    /**
+     * Returns the id of a file name without giving it one.
+     *
+     * @param path the file name
+     * @return the id of the file name, or -1 if it doesn't have one
+     */
+    public static synchronized int findId(String path) {
+        Integer id = IDS.get(path);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the file name of an id.
+     *
+     * @param id the id of the file name
+     * @return the file name
+     * @throws IndexOutOfBoundsException if no file name has the id
+     */
+    public static String getPath(int id) {
+        // count is read first, so the array read after it holds every file name it counts
+        if (id < 0 || id >= count)
+            throw new IndexOutOfBoundsException("No file has the id " + id);
+        return paths[id];
+    }
+
+    /**
+     * Returns the number of file names that have an id, which is one more than the largest id.
+     *
+     * @return the number of file names
+     */
+    public static int size() {
+        return count;
+    }
+}
@@ -0,0 +1,126 @@
+package main.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * This class records what an input file looked like when it was indexed: its size, its last modified time and a
+ * SHA-256 hash of its content. A WordTracker uses it to skip files that have not changed since they were indexed.
+ */
+public final class FileMetadata {
+
+    /**
+     * The number of bytes read from the file at a time while hashing
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The size of the file in bytes
+     */
+    private final long size;
+
+    /**
+     * The last modified time of the file in milliseconds since the epoch
+     */
+    private final long lastModified;
+
+    /**
+     * The SHA-256 hash of the content of the file
+     */
+    private final byte[] contentHash;
+
+    /**
+     * Constructor for FileMetadata.
+     *
+     * @param size         the size of the file in bytes
+     * @param lastModified the last modified time of the file in milliseconds since the epoch
+     * @param contentHash  the SHA-256 hash of the content of the file
+     */
+    public FileMetadata(long size, long lastModified, byte[] contentHash) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash.clone();
+    }
+
+    /**
+     * Reads the attributes of a file and hashes its content.
+     *
+     * @param filename the name of the file
+     * @return the metadata of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static FileMetadata read(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        // the attributes are read first, so a change made while hashing shows up as a newer time next time
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return new FileMetadata(attributes.size(), attributes.lastModifiedTime().toMillis(), digest.digest());
+    }
+
+    /**
+     * Checks whether a file still has the size and last modified time recorded here, in which case it is assumed
+     * not to have changed without hashing it again.
+     *
+     * @param attributes the current attributes of the file
+     * @return true if the size and last modified time are unchanged
+     */
+    public boolean hasSameAttributes(BasicFileAttributes attributes) {
+        return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Checks whether another version of the file has the same content as this one.
+     *
+     * @param other the metadata of the other version
+     * @return true if the sizes and content hashes are equal
+     */
+    public boolean hasSameContent(FileMetadata other) {
+        return size == other.size && Arrays.equals(contentHash, other.contentHash);
+    }
+
+    /**
+     * returns the size of the file
+     * @return the size of the file in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * returns the last modified time of the file
+     * @return the last modified time in milliseconds since the epoch
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * returns the hash of the content of the file
+     * @return the SHA-256 hash of the content
+     */
+    public byte[] getContentHash() {
+        return contentHash.clone();
+    }
+}
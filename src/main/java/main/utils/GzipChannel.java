@@ -0,0 +1,204 @@
+package main.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class gzips what is written to it before writing it to another channel, compressing blocks of it on several
+ * threads. Each block is compressed with the end of the block before it as its dictionary and ends on a byte
+ * boundary, so the compressed blocks join into one deflate stream that any gzip reader can read, compressed almost
+ * as well as if it had been compressed on one thread. Only a few blocks per thread are compressed ahead of the one
+ * being written, so memory use doesn't grow with the size of what is written.
+ */
+public class GzipChannel implements WritableByteChannel {
+
+    /**
+     * The number of bytes compressed in each block
+     */
+    private static final int BLOCK_SIZE = 1 << 17;
+
+    /**
+     * The number of bytes at the end of a block given to the next block as its dictionary, the size of the window
+     * deflate looks back in
+     */
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    /**
+     * A gzip header with no file name or time, for a stream compressed with deflate
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final WritableByteChannel channel;
+    private final ExecutorService executor;
+
+    /**
+     * The number of blocks that can be compressing while the first of them is waited for
+     */
+    private final int window;
+
+    /**
+     * The blocks being compressed, in the order they are written
+     */
+    private final Deque<Future<ByteBuffer>> compressed = new ArrayDeque<>();
+
+    /**
+     * The checksum and length of everything written, for the gzip trailer
+     */
+    private final CRC32 crc = new CRC32();
+    private long length;
+
+    /**
+     * The block being filled and the number of bytes in it
+     */
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int position;
+
+    /**
+     * The last block handed to a thread and its length, the dictionary of the next block
+     */
+    private byte[] previous;
+    private int previousLength;
+
+    private boolean open = true;
+
+    /**
+     * Constructor for a GzipChannel. The gzip header is written right away.
+     *
+     * @param channel     the channel to write the compressed bytes to, which is closed when this channel is closed
+     * @param parallelism the number of threads that compress blocks, at least 1
+     * @throws IOException if the header cannot be written
+     */
+    public GzipChannel(WritableByteChannel channel, int parallelism) throws IOException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.channel = channel;
+        this.window = 2 * parallelism;
+        writeFully(ByteBuffer.wrap(HEADER));
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Writes bytes, which are compressed once a block of them is full.
+     *
+     * @param source the bytes to write
+     * @return the number of bytes written, which is all of them
+     * @throws IOException if the channel is closed or compressed blocks cannot be written
+     */
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (!open)
+            throw new ClosedChannelException();
+        int written = source.remaining();
+        while (source.hasRemaining()) {
+            int count = Math.min(source.remaining(), block.length - position);
+            source.get(block, position, count);
+            position += count;
+            if (position == block.length)
+                compressBlock(false);
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Compresses the last block, writes every compressed block and the gzip trailer, and closes the channel.
+     *
+     * @throws IOException if the compressed bytes cannot be written or the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open)
+            return;
+        open = false;
+        try {
+            compressBlock(true);
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue()).putInt((int) length).flip();
+            writeFully(trailer);
+        } finally {
+            executor.shutdownNow();
+            channel.close();
+        }
+    }
+
+    // helper method to hand the block being filled to a thread and start a new one, writing the compressed blocks
+    // that are done once too many are waiting, or all of them after the last block
+    private void compressBlock(boolean last) throws IOException {
+        byte[] input = block;
+        int inputLength = position;
+        byte[] dictionary = previous;
+        int dictionaryLength = previousLength;
+        crc.update(input, 0, inputLength);
+        length += inputLength;
+        compressed.add(executor.submit(() -> deflate(input, inputLength, dictionary, dictionaryLength, last)));
+        previous = input;
+        previousLength = inputLength;
+        block = new byte[BLOCK_SIZE];
+        position = 0;
+        while (compressed.size() > window || (last && !compressed.isEmpty()))
+            writeFully(await(compressed.poll()));
+    }
+
+    // helper method to compress a block into raw deflate blocks. Every block but the last ends with a sync flush, so
+    // it ends on a byte boundary and the next block can be appended to it
+    private static ByteBuffer deflate(byte[] input, int inputLength, byte[] dictionary, int dictionaryLength,
+                                      boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if (dictionary != null) {
+                int dictionaryStart = Math.max(0, dictionaryLength - DICTIONARY_SIZE);
+                deflater.setDictionary(dictionary, dictionaryStart, dictionaryLength - dictionaryStart);
+            }
+            deflater.setInput(input, 0, inputLength);
+            if (last)
+                deflater.finish();
+            byte[] output = new byte[inputLength / 2 + 64];
+            int size = 0;
+            while (true) {
+                if (size == output.length)
+                    output = Arrays.copyOf(output, output.length * 2);
+                size += deflater.deflate(output, size, output.length - size,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                // a sync flush is done once it leaves room in the output, a finish once the deflater says so
+                if (last ? deflater.finished() : size < output.length)
+                    return ByteBuffer.wrap(output, 0, size);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+    }
+
+    // helper method to wait for a block to be compressed
+    private static ByteBuffer await(Future<ByteBuffer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compressing the output was interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress the output", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package main.utils;
+
+import main.datastructures.IntList;
+import main.datastructures.interfaces.BSTreeADT;
+import main.datastructures.interfaces.Iterator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * This class reads the serialized tree that WordTracker kept its words in before RepositoryFormat, so an old
+ * repository can be converted instead of being lost. The WordNodes of that tree kept their line numbers in a map
+ * from file name to a list of line numbers, which the WordNode class no longer has, so they are read into a class
+ * of the same shape and converted.
+ */
+final class LegacyRepository {
+
+    private LegacyRepository() {
+    }
+
+    /**
+     * Reads the words of a serialized tree in alphabetical order.
+     *
+     * @param file the serialized tree
+     * @return the WordNodes of the tree, with their files given ids in the order of their names
+     * @throws IOException if the file cannot be read or does not hold a serialized tree of WordNodes
+     */
+    static List<WordNode> read(Path file) throws IOException {
+        BSTreeADT<?> tree;
+        try (ObjectInputStream input = new LegacyInput(Files.newInputStream(file))) {
+            tree = (BSTreeADT<?>) input.readObject();
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("Not a serialized tree of words: " + file, ex);
+        }
+
+        List<LegacyWordNode> legacyNodes = new ArrayList<>(tree.size());
+        Iterator<?> iterator = tree.inorderIterator();
+        while (iterator.hasNext())
+            legacyNodes.add((LegacyWordNode) iterator.next());
+        // the old WordNodes listed their files in hash order, so the files get ids in the order of their names
+        TreeSet<String> filenames = new TreeSet<>();
+        for (LegacyWordNode legacyNode : legacyNodes)
+            filenames.addAll(legacyNode.fileLinesMap.keySet());
+        for (String filename : filenames)
+            FileDictionary.getId(filename);
+
+        List<WordNode> wordNodes = new ArrayList<>(legacyNodes.size());
+        for (LegacyWordNode legacyNode : legacyNodes) {
+            WordNode wordNode = new WordNode(legacyNode.word);
+            for (Map.Entry<String, List<Integer>> entry : legacyNode.fileLinesMap.entrySet()) {
+                IntList lineNumbers = new IntList(entry.getValue().size());
+                for (int lineNumber : entry.getValue())
+                    lineNumbers.add(lineNumber);
+                if (!lineNumbers.isEmpty())
+                    wordNode.replaceFileLines(entry.getKey(), lineNumbers);
+            }
+            wordNodes.add(wordNode);
+        }
+        return wordNodes;
+    }
+
+    /**
+     * A WordNode as it was serialized before files had ids
+     */
+    private static final class LegacyWordNode implements Comparable<LegacyWordNode>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private String word;
+        private Map<String, List<Integer>> fileLinesMap;
+
+        @Override
+        public int compareTo(LegacyWordNode other) {
+            return word.compareToIgnoreCase(other.word);
+        }
+    }
+
+    /**
+     * An ObjectInputStream that reads the WordNodes of the stream as LegacyWordNodes
+     */
+    private static final class LegacyInput extends ObjectInputStream {
+
+        private LegacyInput(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass descriptor = super.readClassDescriptor();
+            if (descriptor.getName().equals(WordNode.class.getName()))
+                return ObjectStreamClass.lookup(LegacyWordNode.class);
+            return descriptor;
+        }
+    }
+}
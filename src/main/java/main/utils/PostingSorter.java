@@ -0,0 +1,449 @@
+package main.utils;
+
+import main.datastructures.IntList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * This class sorts the (word, file, line) postings of a bulk load into WordNodes in alphabetical order, so that the
+ * BST can be built from them in one pass instead of inserting the words one at a time.
+ * Postings are collected in a run of a fixed size. A full run is sorted, grouped into WordNodes and streamed to a
+ * temporary file, and the runs are merged into one file when the postings are finished, which is read back a WordNode
+ * at a time, so only one run of postings is ever held in memory. Runs of the same size are merged into one larger run
+ * as soon as there are MERGE_FAN_IN of them, so no more than a few files are open at once however many postings there
+ * are. WordNodes for the same word are merged in the order their postings were added, so the word keeps the spelling
+ * it was first seen with and its line numbers stay in order, like inserting the words one at a time.
+ */
+public class PostingSorter implements Closeable {
+
+    /**
+     * The number of runs merged at once
+     */
+    private static final int MERGE_FAN_IN = 16;
+
+    /**
+     * The number of postings held in memory before they are spilled
+     */
+    private final int runSize;
+
+    /**
+     * For each distinct word of the current run, its index in runWords
+     */
+    private final Map<String, Integer> wordIndexes = new HashMap<>();
+
+    /**
+     * The distinct words of the current run, in the order they were first added
+     */
+    private final List<String> runWords = new ArrayList<>();
+
+    /**
+     * The word index, file id and line number of each posting of the current run
+     */
+    private final IntList postingWords = new IntList();
+    private final IntList postingFiles = new IntList();
+    private final IntList postingLines = new IntList();
+
+    /**
+     * The temporary files the full runs were spilled to, in the order they were written
+     */
+    private final List<Path> spills = new ArrayList<>();
+
+    /**
+     * The number of times the postings of each spilled run have been merged
+     */
+    private final List<Integer> spillLevels = new ArrayList<>();
+
+    /**
+     * Constructor for a PostingSorter.
+     *
+     * @param runSize the number of postings held in memory before they are spilled to a temporary file
+     */
+    public PostingSorter(int runSize) {
+        if (runSize < 1)
+            throw new IllegalArgumentException("Run size must be at least 1");
+        this.runSize = runSize;
+    }
+
+    /**
+     * Adds the posting of a word found on a line of a file.
+     *
+     * @param word       the word
+     * @param fileId     the FileDictionary id of the file
+     * @param lineNumber the line number the word was found on
+     * @throws IOException if the run is full and cannot be spilled
+     */
+    public void add(String word, int fileId, int lineNumber) throws IOException {
+        Integer wordIndex = wordIndexes.get(word);
+        if (wordIndex == null) {
+            wordIndex = runWords.size();
+            wordIndexes.put(word, wordIndex);
+            runWords.add(word);
+        }
+        postingWords.add(wordIndex);
+        postingFiles.add(fileId);
+        postingLines.add(lineNumber);
+        if (postingWords.size() >= runSize)
+            spill();
+    }
+
+    /**
+     * Sorts every posting added and groups them into WordNodes. If no run was spilled, the WordNodes are kept in
+     * memory; otherwise the last run is spilled too and every run is merged into one temporary file, which the
+     * WordNodes are read back from one at a time. The other temporary files are deleted.
+     *
+     * @return the WordNodes in strictly ascending order, which deletes its temporary file when it is closed
+     * @throws IOException if a run cannot be spilled or a spilled run cannot be read
+     */
+    public SortedRun finish() throws IOException {
+        try {
+            if (spills.isEmpty()) {
+                List<WordNode> run = new ArrayList<>();
+                sortRun(run::add);
+                return SortedRun.of(run);
+            }
+            if (!postingWords.isEmpty())
+                spill();
+            while (spills.size() > 1)
+                mergeSpills(Math.max(0, spills.size() - MERGE_FAN_IN));
+            SortedRun sorted = new SortedRun(new RunReader(spills.get(0)), spills.get(0));
+            // the file belongs to the SortedRun now
+            spills.clear();
+            spillLevels.clear();
+            return sorted;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Deletes the temporary files of the spilled runs.
+     *
+     * @throws IOException if a temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path spill : spills)
+            Files.deleteIfExists(spill);
+        spills.clear();
+        spillLevels.clear();
+    }
+
+    /**
+     * Merges lists of WordNodes that are each in strictly ascending order into one. WordNodes for the same word are
+     * merged into the one from the earliest list.
+     *
+     * @param sources the WordNodes of each list, in ascending order
+     * @param visitor called with the WordNode kept for a word and the index of the list, for every WordNode taken from
+     *                a list, or null
+     * @return the merged WordNodes in strictly ascending order
+     */
+    public static List<WordNode> merge(List<? extends Iterator<WordNode>> sources, ObjIntConsumer<WordNode> visitor) {
+        List<WordNode> merged = new ArrayList<>();
+        merge(sources, visitor, merged::add);
+        return merged;
+    }
+
+    // helper method to merge sorted lists, handing each word to the sink once every WordNode for it has been merged
+    private static void merge(List<? extends Iterator<WordNode>> sources, ObjIntConsumer<WordNode> visitor,
+                              Consumer<WordNode> sink) {
+        // ties go to the earlier list, so the first WordNode taken for a word is the one that is kept
+        PriorityQueue<Head> heads = new PriorityQueue<>();
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext())
+                heads.add(new Head(sources.get(i).next(), i));
+        }
+        WordNode last = null;
+        while (!heads.isEmpty()) {
+            Head head = heads.poll();
+            WordNode wordNode = head.wordNode;
+            if (last != null && last.compareTo(wordNode) == 0) {
+                last.merge(wordNode);
+                wordNode = last;
+            } else {
+                if (last != null)
+                    sink.accept(last);
+                last = wordNode;
+            }
+            if (visitor != null)
+                visitor.accept(wordNode, head.source);
+            Iterator<WordNode> source = sources.get(head.source);
+            if (source.hasNext()) {
+                head.wordNode = source.next();
+                heads.add(head);
+            }
+        }
+        if (last != null)
+            sink.accept(last);
+    }
+
+    // helper method to stream the current run to a temporary file, merging the last runs once MERGE_FAN_IN of them
+    // have been merged the same number of times
+    private void spill() throws IOException {
+        Path spill = Files.createTempFile("postings", ".run");
+        spills.add(spill);
+        spillLevels.add(0);
+        try (RunWriter writer = new RunWriter(spill)) {
+            sortRun(writer);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        int size = spills.size();
+        while (size >= MERGE_FAN_IN && spillLevels.get(size - MERGE_FAN_IN).equals(spillLevels.get(size - 1))) {
+            mergeSpills(size - MERGE_FAN_IN);
+            size = spills.size();
+        }
+    }
+
+    // helper method to merge the spilled runs from an index on into one spilled run
+    private void mergeSpills(int from) throws IOException {
+        Path merged = Files.createTempFile("postings", ".run");
+        int level = spillLevels.get(spills.size() - 1) + 1;
+        try (RunWriter writer = new RunWriter(merged)) {
+            mergeSpills(from, writer);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(merged);
+            throw ex;
+        }
+        spills.add(merged);
+        spillLevels.add(level);
+    }
+
+    // helper method to merge the spilled runs from an index on into a sink, deleting the spilled runs
+    private void mergeSpills(int from, Consumer<WordNode> sink) throws IOException {
+        List<RunReader> runs = new ArrayList<>();
+        try {
+            for (int i = from; i < spills.size(); i++)
+                runs.add(new RunReader(spills.get(i)));
+            merge(runs, null, sink);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            for (RunReader run : runs)
+                run.close();
+        }
+        List<Path> mergedSpills = spills.subList(from, spills.size());
+        for (Path spill : mergedSpills)
+            Files.deleteIfExists(spill);
+        mergedSpills.clear();
+        spillLevels.subList(from, spillLevels.size()).clear();
+    }
+
+    // helper method to sort the postings of the current run by word and then by the order they were added, grouping
+    // them into WordNodes that are handed to a sink as each one is complete, and to empty the run
+    private void sortRun(Consumer<WordNode> sink) {
+        if (postingWords.isEmpty())
+            return;
+
+        // rank the distinct words once, giving words that only differ in case the same rank
+        Integer[] order = new Integer[runWords.size()];
+        WordNode[] keys = new WordNode[runWords.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            keys[i] = new WordNode(runWords.get(i));
+        }
+        Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+        int[] ranks = new int[order.length];
+        int rank = 0;
+        for (int i = 1; i < order.length; i++) {
+            if (keys[order[i - 1]].compareTo(keys[order[i]]) != 0)
+                rank++;
+            ranks[order[i]] = rank;
+        }
+
+        // the posting index in the low bits keeps the postings of a word in the order they were added
+        long[] postings = new long[postingWords.size()];
+        for (int i = 0; i < postings.length; i++)
+            postings[i] = (long) ranks[postingWords.get(i)] << 32 | i;
+        Arrays.sort(postings);
+
+        WordNode wordNode = null;
+        for (int i = 0; i < postings.length; i++) {
+            int posting = (int) postings[i];
+            if (i == 0 || postings[i] >>> 32 != postings[i - 1] >>> 32) {
+                if (wordNode != null)
+                    sink.accept(wordNode);
+                wordNode = new WordNode(runWords.get(postingWords.get(posting)));
+            }
+            wordNode.addFileAndLineNumber(postingFiles.get(posting), postingLines.get(posting));
+        }
+        sink.accept(wordNode);
+
+        wordIndexes.clear();
+        runWords.clear();
+        postingWords.clear();
+        postingFiles.clear();
+        postingLines.clear();
+    }
+
+    /**
+     * WordNodes in strictly ascending order, read one at a time from a list in memory or from the temporary file a
+     * PostingSorter merged its runs into, which is deleted when the SortedRun is closed.
+     */
+    public static final class SortedRun implements Iterator<WordNode>, Closeable {
+        private final Iterator<WordNode> wordNodes;
+        private final Path file;
+
+        private SortedRun(Iterator<WordNode> wordNodes, Path file) {
+            this.wordNodes = wordNodes;
+            this.file = file;
+        }
+
+        /**
+         * Returns a SortedRun over WordNodes held in memory.
+         *
+         * @param wordNodes the WordNodes in strictly ascending order
+         * @return a SortedRun over the WordNodes
+         */
+        public static SortedRun of(List<WordNode> wordNodes) {
+            return new SortedRun(wordNodes.iterator(), null);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return wordNodes.hasNext();
+        }
+
+        /**
+         * Returns the next WordNode.
+         *
+         * @return the next WordNode
+         * @throws UncheckedIOException if the temporary file cannot be read
+         */
+        @Override
+        public WordNode next() {
+            return wordNodes.next();
+        }
+
+        /**
+         * Closes and deletes the temporary file, if the WordNodes are read from one.
+         *
+         * @throws IOException if the temporary file cannot be closed or deleted
+         */
+        @Override
+        public void close() throws IOException {
+            if (file == null)
+                return;
+            try {
+                ((RunReader) wordNodes).close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * The next WordNode of one of the lists being merged
+     */
+    private static class Head implements Comparable<Head> {
+        private WordNode wordNode;
+        private final int source;
+
+        private Head(WordNode wordNode, int source) {
+            this.wordNode = wordNode;
+            this.source = source;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int comparison = wordNode.compareTo(other.wordNode);
+            return comparison != 0 ? comparison : Integer.compare(source, other.source);
+        }
+    }
+
+    /**
+     * Writes the WordNodes of a spilled run
+     */
+    private static class RunWriter implements Consumer<WordNode>, Closeable {
+        private final DataOutputStream output;
+        private final WordNodeCodec codec = new WordNodeCodec();
+
+        private RunWriter(Path spill) throws IOException {
+            output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spill)));
+        }
+
+        @Override
+        public void accept(WordNode wordNode) {
+            byte[] bytes = codec.encode(wordNode);
+            try {
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads back the WordNodes of a spilled run
+     */
+    private static class RunReader implements Iterator<WordNode>, Closeable {
+        private final DataInputStream input;
+        private final WordNodeCodec codec = new WordNodeCodec();
+        private WordNode next;
+
+        private RunReader(Path spill) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(spill)));
+            next = read();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public WordNode next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            WordNode wordNode = next;
+            try {
+                next = read();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return wordNode;
+        }
+
+        private WordNode read() throws IOException {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException ex) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            return codec.decode(ByteBuffer.wrap(bytes), 0, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package main.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class writes report text through one large reusable buffer, flushing it to a channel in big blocks.
+ * Text is encoded with the default charset, like a PrintWriter does. ASCII text and ints are written straight into
+ * the buffer, so writing a report doesn't create a String for every word, file name and line number.
+ * A ReportWriter can also keep what is written in memory, so parts of a report can be rendered on other threads and
+ * then written out in order.
+ */
+public class ReportWriter implements Closeable {
+
+    /**
+     * The size of the buffer, which is the size of the blocks written to the channel
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The size of the blocks a ReportWriter kept in memory is made of
+     */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The channel the buffer is flushed to, or null if what is written is kept in memory
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The full blocks written so far, when what is written is kept in memory
+     */
+    private List<ByteBuffer> blocks = new ArrayList<>();
+
+    /**
+     * The charset text is encoded with
+     */
+    private final Charset charset;
+
+    /**
+     * Whether the charset encodes ASCII characters as themselves, so they can be copied into the buffer as they are
+     */
+    private final boolean asciiCompatible;
+
+    /**
+     * The buffer and the number of bytes in it
+     */
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * Constructor for a ReportWriter.
+     *
+     * @param channel the channel to write to, which is closed when the writer is closed
+     */
+    public ReportWriter(WritableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    private ReportWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.charset = Charset.defaultCharset();
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++)
+            ascii[i] = (byte) i;
+        this.asciiCompatible = Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+
+    /**
+     * Opens a ReportWriter that replaces the contents of a file, creating it if it doesn't exist.
+     * If the name of the file ends with .gz, what is written is gzipped on every processor.
+     *
+     * @param filename the file to write to
+     * @return a writer for the file
+     * @throws IOException if the file cannot be opened for writing
+     */
+    public static ReportWriter toFile(String filename) throws IOException {
+        FileChannel file = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!filename.toLowerCase(Locale.ROOT).endsWith(".gz"))
+            return new ReportWriter(file);
+        try {
+            return new ReportWriter(new GzipChannel(file, Runtime.getRuntime().availableProcessors()));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a ReportWriter that writes to the console. Closing it flushes the console without closing it.
+     *
+     * @return a writer for the console
+     */
+    public static ReportWriter toConsole() {
+        return new ReportWriter(new ConsoleChannel());
+    }
+
+    /**
+     * Opens a ReportWriter that keeps what is written in memory, to be taken with takeBlocks.
+     *
+     * @return a writer that keeps what is written
+     */
+    public static ReportWriter toMemory() {
+        return new ReportWriter(null, BLOCK_SIZE);
+    }
+
+    /**
+     * Writes text.
+     *
+     * @param text the text to write
+     * @throws IOException if the buffer has to be flushed and the channel cannot be written
+     */
+    public void write(String text) throws IOException {
+        int length = text.length();
+        if (asciiCompatible) {
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    write(text.substring(i).getBytes(charset));
+                    return;
+                }
+                if (position == buffer.length)
+                    flushBuffer();
+                buffer[position++] = (byte) c;
+            }
+            return;
+        }
+        write(text.getBytes(charset));
+    }
+
+    /**
+     * Writes a character.
+     *
+     * @param c the character to write
+     * @throws IOException if the buffer has to be flushed and the channel cannot be written
+     */
+    public void write(char c) throws IOException {
+        if (!asciiCompatible || c >= 0x80) {
+            write(String.valueOf(c));
+            return;
+        }
+        if (position == buffer.length)
+            flushBuffer();
+        buffer[position++] = (byte) c;
+    }
+
+    /**
+     * Writes an int in decimal, like String.valueOf does.
+     *
+     * @param value the int to write
+     * @throws IOException if the buffer has to be flushed and the channel cannot be written
+     */
+    public void write(int value) throws IOException {
+        if (!asciiCompatible || value == Integer.MIN_VALUE) {
+            write(String.valueOf(value));
+            return;
+        }
+        // an int has at most 10 digits and a sign
+        if (buffer.length - position < 11)
+            flushBuffer();
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + digits(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Writes bytes that are already encoded, such as the result of encode.
+     *
+     * @param bytes the bytes to write
+     * @throws IOException if the buffer has to be flushed and the channel cannot be written
+     */
+    public void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes blocks taken from another ReportWriter, in order. Channels that can write several buffers at once,
+     * such as files, are given all of them in one call.
+     *
+     * @param blocks the blocks to write
+     * @throws IOException if the channel cannot be written
+     */
+    public void write(List<ByteBuffer> blocks) throws IOException {
+        flushBuffer();
+        if (channel == null) {
+            this.blocks.addAll(blocks);
+            return;
+        }
+        if (channel instanceof GatheringByteChannel) {
+            ByteBuffer[] buffers = blocks.toArray(new ByteBuffer[0]);
+            for (int i = 0; i < buffers.length; ) {
+                ((GatheringByteChannel) channel).write(buffers, i, buffers.length - i);
+                while (i < buffers.length && !buffers[i].hasRemaining())
+                    i++;
+            }
+            return;
+        }
+        for (ByteBuffer block : blocks)
+            writeFully(block);
+    }
+
+    /**
+     * Takes everything written to a ReportWriter that keeps it in memory.
+     *
+     * @return the blocks written since they were last taken, in order
+     */
+    public List<ByteBuffer> takeBlocks() {
+        if (channel != null)
+            throw new IllegalStateException("Only a ReportWriter that writes to memory has blocks to take");
+        if (position > 0)
+            blocks.add(ByteBuffer.wrap(Arrays.copyOf(buffer, position)));
+        position = 0;
+        List<ByteBuffer> taken = blocks;
+        blocks = new ArrayList<>();
+        return taken;
+    }
+
+    /**
+     * Encodes text with the charset of this writer, so text that is written many times is only encoded once.
+     *
+     * @param text the text to encode
+     * @return the encoded text
+     */
+    public byte[] encode(String text) {
+        return text.getBytes(charset);
+    }
+
+    /**
+     * Writes everything in the buffer to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    /**
+     * Flushes the buffer and closes the channel.
+     *
+     * @throws IOException if the channel cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (channel != null)
+                channel.close();
+        }
+    }
+
+    // helper method to empty the buffer into the channel, or to keep it as a block and start a new one
+    private void flushBuffer() throws IOException {
+        if (position > 0 && channel == null) {
+            blocks.add(ByteBuffer.wrap(buffer, 0, position));
+            buffer = new byte[buffer.length];
+        } else if (position > 0) {
+            writeFully(ByteBuffer.wrap(buffer, 0, position));
+        }
+        position = 0;
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        if (channel == null) {
+            blocks.add(ByteBuffer.wrap(Arrays.copyOfRange(bytes.array(), bytes.arrayOffset() + bytes.position(),
+                    bytes.arrayOffset() + bytes.limit())));
+            return;
+        }
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+    }
+
+    // helper method to count the decimal digits of a value that is not negative
+    private static int digits(int value) {
+        int digits = 1;
+        for (long limit = 10; limit <= value; limit *= 10)
+            digits++;
+        return digits;
+    }
+
+    /**
+     * Writes to System.out, so the report stays in order with the other messages printed there.
+     * Closing it only flushes System.out.
+     */
+    private static class ConsoleChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            if (source.hasArray()) {
+                System.out.write(source.array(), source.arrayOffset() + source.position(), length);
+                source.position(source.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                source.get(bytes);
+                System.out.write(bytes, 0, length);
+            }
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            System.out.flush();
+        }
+    }
+}
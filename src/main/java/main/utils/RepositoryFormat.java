@@ -0,0 +1,670 @@
+package main.utils;
+
+import main.datastructures.IntList;
+import main.datastructures.interfaces.BSTreeADT;
+import main.datastructures.interfaces.Iterator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * This class reads and writes the compact binary file a WordTracker keeps its words in.
+ * The words are written in alphabetical order from an in-order walk of the tree, so they can be read back into a
+ * balanced tree in linear time.
+ *
+ * The file holds, in order:
+ * <ul>
+ *     <li>the magic number and the format version</li>
+ *     <li>a dictionary of every file name, each written once</li>
+ *     <li>the size, last modified time and content hash of every indexed file</li>
+ *     <li>the number of words, then for each word its text, and for each file it occurs in the index of the file in
+ *     the dictionary and the line numbers, each written as the difference from the previous one</li>
+ *     <li>an offset table giving the position of every word as an 8-byte number, in alphabetical order</li>
+ *     <li>the position of the offset table as an 8-byte number, and the magic number again</li>
+ * </ul>
+ * The offset table at the end lets a RepositoryIndex binary-search the words of a memory-mapped repository file
+ * without reading all of it.
+ * Every count, index and line number difference is a variable-length integer using 7 bits per byte, and every
+ * string is its length followed by its UTF-8 bytes.
+ *
+ * Words indexed after the repository file was written can be appended to a journal file instead of rewriting the
+ * whole repository. The journal holds one record per indexed file, giving the metadata of the file and every word
+ * of the file with its line numbers in that file, followed by a CRC-32 of the record. A record for a file whose
+ * content did not change holds only its metadata. Only the last record of a file counts, and it replaces everything
+ * the repository file said about that file, so replaying a journal more than once gives the same tree.
+ */
+public final class RepositoryFormat {
+
+    /**
+     * The first and last four bytes of a repository file, "WTRP"
+     */
+    static final int MAGIC = 0x57545250;
+
+    /**
+     * The first four bytes of a journal file, "WTRJ"
+     */
+    private static final int JOURNAL_MAGIC = 0x5754524A;
+
+    /**
+     * The version of the repository format written by this class
+     */
+    static final int VERSION = 3;
+
+    /**
+     * The version of the journal format written by this class
+     */
+    private static final int JOURNAL_VERSION = 2;
+
+    /**
+     * The size of the end of a repository file after the offset table
+     */
+    static final int TRAILER_SIZE = 12;
+
+    /**
+     * The size of the buffer used to read and write repository files
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private RepositoryFormat() {
+    }
+
+    /**
+     * Writes the words of a tree to a repository file. The file is written next to the target and then moved over
+     * it, so a crash while saving never leaves a half-written repository behind.
+     *
+     * @param tree         the tree of WordNodes to write
+     * @param fileMetadata the metadata of every indexed file
+     * @param file         the repository file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(BSTreeADT<WordNode> tree, Map<String, FileMetadata> fileMetadata, Path file)
+            throws IOException {
+        // the dictionary lists the files in the order of their ids, so they get the same order when read back
+        BitSet usedFileIds = new BitSet();
+        for (String filename : fileMetadata.keySet())
+            usedFileIds.set(FileDictionary.getId(filename));
+        Iterator<WordNode> iterator = tree.inorderIterator();
+        while (iterator.hasNext()) {
+            WordNode wordNode = iterator.next();
+            for (int i = 0; i < wordNode.getFileCount(); i++)
+                usedFileIds.set(wordNode.getFileId(i));
+        }
+        int[] fileIndexes = new int[usedFileIds.length()];
+        int fileCount = 0;
+        for (int id = usedFileIds.nextSetBit(0); id >= 0; id = usedFileIds.nextSetBit(id + 1))
+            fileIndexes[id] = fileCount++;
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Output output = new Output(FileChannel.open(temporaryFile, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            output.writeInt(MAGIC);
+            output.writeVarInt(VERSION);
+            output.writeVarInt(fileCount);
+            for (int id = usedFileIds.nextSetBit(0); id >= 0; id = usedFileIds.nextSetBit(id + 1))
+                output.writeString(FileDictionary.getPath(id));
+            output.writeVarInt(fileMetadata.size());
+            for (Map.Entry<String, FileMetadata> entry : fileMetadata.entrySet()) {
+                output.writeVarInt(fileIndexes[FileDictionary.getId(entry.getKey())]);
+                output.writeMetadata(entry.getValue());
+            }
+            output.writeVarInt(tree.size());
+            long[] offsets = new long[tree.size()];
+            int index = 0;
+            iterator = tree.inorderIterator();
+            while (iterator.hasNext()) {
+                WordNode wordNode = iterator.next();
+                offsets[index++] = output.position();
+                output.writeString(wordNode.getWord());
+                output.writeVarInt(wordNode.getFileCount());
+                for (int i = 0; i < wordNode.getFileCount(); i++) {
+                    output.writeVarInt(fileIndexes[wordNode.getFileId(i)]);
+                    output.writeLineNumbers(wordNode.getLineNumbers(i));
+                }
+            }
+            long tableOffset = output.position();
+            for (long offset : offsets)
+                output.writeLong(offset);
+            output.writeLong(tableOffset);
+            output.writeInt(MAGIC);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the words of a repository file in alphabetical order.
+     *
+     * @param file         the repository file
+     * @param fileMetadata the map the metadata of the indexed files is put into
+     * @return the WordNodes in the file, in the order of the tree they were written from
+     * @throws IOException if the file cannot be read or is not a repository file
+     */
+    public static List<WordNode> read(Path file, Map<String, FileMetadata> fileMetadata) throws IOException {
+        try (Input input = new Input(FileChannel.open(file, StandardOpenOption.READ))) {
+            if (input.readInt() != MAGIC)
+                throw new IOException("Not a WordTracker repository: " + file);
+            // version 1 files lack the offset table and versions 1 and 2 lack the metadata of the indexed files
+            int version = input.readVarInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported repository version " + version + ": " + file);
+
+            String[] filenames = new String[input.readCount()];
+            int[] fileIds = new int[filenames.length];
+            for (int i = 0; i < filenames.length; i++) {
+                filenames[i] = input.readString();
+                fileIds[i] = FileDictionary.getId(filenames[i]);
+            }
+            if (version >= 3) {
+                int metadataCount = input.readCount();
+                for (int i = 0; i < metadataCount; i++) {
+                    String filename = filenames[input.readIndex(filenames.length)];
+                    fileMetadata.put(filename, input.readMetadata());
+                }
+            }
+
+            int wordCount = input.readCount();
+            List<WordNode> wordNodes = new ArrayList<>(wordCount);
+            for (int i = 0; i < wordCount; i++) {
+                WordNode wordNode = new WordNode(input.readString());
+                int fileCount = input.readCount();
+                for (int j = 0; j < fileCount; j++) {
+                    int fileId = fileIds[input.readIndex(fileIds.length)];
+                    wordNode.replaceFileLines(fileId, input.readLineNumbers());
+                }
+                wordNodes.add(wordNode);
+            }
+            return wordNodes;
+        }
+    }
+
+    /**
+     * Appends a record for each of the given files to a journal file, creating the journal if needed.
+     *
+     * @param file         the journal file
+     * @param postings     for each file name, the WordNodes whose line numbers in that file are recorded, or null to
+     *                     record only the metadata of a file whose content did not change
+     * @param fileMetadata the metadata of every indexed file
+     * @throws IOException if the journal cannot be written
+     */
+    public static void appendJournal(Path file, Map<String, ? extends Collection<WordNode>> postings,
+                                     Map<String, FileMetadata> fileMetadata) throws IOException {
+        try (Output output = new Output(FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (output.channel.size() == 0) {
+                output.writeInt(JOURNAL_MAGIC);
+                output.writeVarInt(JOURNAL_VERSION);
+            }
+            for (Map.Entry<String, ? extends Collection<WordNode>> entry : postings.entrySet()) {
+                String filename = entry.getKey();
+                output.beginChecksum();
+                output.writeString(filename);
+                output.writeMetadata(fileMetadata.get(filename));
+                if (entry.getValue() == null) {
+                    output.writeVarInt(0);
+                    output.writeChecksum();
+                    continue;
+                }
+                output.writeVarInt(1);
+                output.writeVarInt(entry.getValue().size());
+                for (WordNode wordNode : entry.getValue()) {
+                    output.writeString(wordNode.getWord());
+                    output.writeLineNumbers(wordNode.getLineNumbers(filename));
+                }
+                output.writeChecksum();
+            }
+            output.flush();
+            output.channel.force(false);
+        }
+    }
+
+    /**
+     * Reads the records of a journal file. A record that was cut short or fails its checksum, as when a crash
+     * interrupted appending it, ends the journal and is cut off it, along with everything after it, and the reason is
+     * returned with the records for the caller to report. Nothing is cut off a journal that fails in any other way,
+     * such as one with an unknown header or version.
+     *
+     * @param file the journal file
+     * @return the last record of each file, in the order the files were first recorded
+     * @throws IOException if the journal cannot be read, or is not a journal this class can read
+     */
+    public static Journal readJournal(Path file) throws IOException {
+        return readJournal(file, true);
+    }
+
+    /**
+     * Reads the records of a journal file, optionally leaving a damaged journal as it is so that readers never change
+     * a journal another process may be appending to.
+     *
+     * @param file   the journal file
+     * @param repair true to cut a record that was cut short or fails its checksum off the journal
+     * @return the last record of each file, in the order the files were first recorded
+     * @throws IOException if the journal cannot be read, or is not a journal this class can read
+     */
+    static Journal readJournal(Path file, boolean repair) throws IOException {
+        Journal journal = new Journal();
+        Map<String, JournalRecord> records = journal.records;
+        FileChannel channel = repair
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try (Input input = new Input(channel)) {
+            int version;
+            try {
+                if (input.readInt() != JOURNAL_MAGIC)
+                    throw new IOException("Not a WordTracker journal: " + file);
+                // version 1 records lack the metadata of their file and always hold its words
+                version = input.readVarInt();
+            } catch (EOFException ex) {
+                // the journal was cut short while its header was being written, so it holds no records yet
+                discardTornTail(journal, input, 0, repair, ex.getMessage());
+                return journal;
+            }
+            if (version < 1 || version > JOURNAL_VERSION)
+                throw new IOException("Unsupported journal version " + version + ": " + file);
+            long recordStart = input.position();
+            try {
+                while (input.hasRemaining()) {
+                    input.beginChecksum();
+                    String filename = input.readString();
+                    FileMetadata metadata = version >= 2 ? input.readMetadata() : null;
+                    List<WordNode> wordNodes = null;
+                    if (version < 2 || input.readVarInt() != 0) {
+                        int wordCount = input.readCount();
+                        wordNodes = new ArrayList<>();
+                        for (int i = 0; i < wordCount; i++) {
+                            WordNode wordNode = new WordNode(input.readString());
+                            wordNode.replaceFileLines(filename, input.readLineNumbers());
+                            wordNodes.add(wordNode);
+                        }
+                    }
+                    int checksum = input.endChecksum();
+                    if (input.readInt() != checksum) {
+                        discardTornTail(journal, input, recordStart, repair, "Malformed journal: checksum mismatch");
+                        break;
+                    }
+                    // a record holding only metadata keeps the words of the file's previous record
+                    JournalRecord previous = records.get(filename);
+                    if (wordNodes == null && previous != null)
+                        wordNodes = previous.wordNodes;
+                    records.put(filename, new JournalRecord(filename, metadata, wordNodes));
+                    recordStart = input.position();
+                }
+            } catch (EOFException ex) {
+                discardTornTail(journal, input, recordStart, repair, ex.getMessage());
+            }
+        }
+        return journal;
+    }
+
+    // helper method to ignore the record at the end of a journal that was cut short or fails its checksum, cutting it
+    // off the journal if asked to, so the records appended after it are not lost behind it
+    private static void discardTornTail(Journal journal, Input input, long recordStart, boolean repair, String reason)
+            throws IOException {
+        journal.damage = reason;
+        if (repair)
+            input.channel.truncate(recordStart);
+    }
+
+    // line numbers normally grow, but zig-zag encoding keeps a difference that goes backwards small too
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * The records read from a journal, and why a damaged record at the end of it was left out if there was one
+     */
+    public static final class Journal {
+        private final Map<String, JournalRecord> records = new LinkedHashMap<>();
+        private String damage;
+
+        private Journal() {
+        }
+
+        /**
+         * returns the last record of each file, in the order the files were first recorded
+         * @return the records of the journal by file name
+         */
+        public Map<String, JournalRecord> getRecords() {
+            return records;
+        }
+
+        /**
+         * returns why the record at the end of the journal was left out, having been cut short or failed its checksum
+         * @return the reason the last record was left out, or null if every record was read
+         */
+        public String getDamage() {
+            return damage;
+        }
+    }
+
+    /**
+     * The last record of a file in a journal
+     */
+    public static final class JournalRecord {
+        private final String filename;
+        private final FileMetadata metadata;
+        private final List<WordNode> wordNodes;
+
+        private JournalRecord(String filename, FileMetadata metadata, List<WordNode> wordNodes) {
+            this.filename = filename;
+            this.metadata = metadata;
+            this.wordNodes = wordNodes;
+        }
+
+        /**
+         * returns the name of the file
+         * @return the name of the file
+         */
+        public String getFilename() {
+            return filename;
+        }
+
+        /**
+         * returns the metadata of the file
+         * @return the metadata of the file, or null if the record was written before metadata was recorded
+         */
+        public FileMetadata getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * returns the words of the file, each holding only its line numbers in this file
+         * @return the WordNodes of the file, or null if the journal never recorded the words of the file
+         */
+        public List<WordNode> getWordNodes() {
+            return wordNodes;
+        }
+    }
+
+    /**
+     * Buffered writer of the values in a repository file
+     */
+    private static final class Output implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 checksum = new CRC32();
+        private int checksumStart = -1;
+        private long flushed;
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // returns the number of bytes written so far
+        private long position() {
+            return flushed + buffer.position();
+        }
+
+        // starts a checksum over the bytes written from now on
+        private void beginChecksum() {
+            checksum.reset();
+            checksumStart = buffer.position();
+        }
+
+        // writes the checksum of the bytes written since beginChecksum
+        private void writeChecksum() throws IOException {
+            checksum.update(buffer.array(), checksumStart, buffer.position() - checksumStart);
+            checksumStart = -1;
+            writeInt((int) checksum.getValue());
+        }
+
+        private void writeInt(int value) throws IOException {
+            ensureRoom(4);
+            buffer.putInt(value);
+        }
+
+        private void writeLong(long value) throws IOException {
+            ensureRoom(8);
+            buffer.putLong(value);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            ensureRoom(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // writes the number of line numbers, then each one as the difference from the previous one
+        private void writeLineNumbers(IntList lineNumbers) throws IOException {
+            writeVarInt(lineNumbers.size());
+            int previous = 0;
+            for (int i = 0; i < lineNumbers.size(); i++) {
+                int lineNumber = lineNumbers.get(i);
+                writeVarInt(zigZag(lineNumber - previous));
+                previous = lineNumber;
+            }
+        }
+
+        private void writeMetadata(FileMetadata metadata) throws IOException {
+            writeLong(metadata.getSize());
+            writeLong(metadata.getLastModified());
+            writeBytes(metadata.getContentHash());
+        }
+
+        private void writeString(String value) throws IOException {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeVarInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensureRoom(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        private void flush() throws IOException {
+            if (checksumStart >= 0) {
+                checksum.update(buffer.array(), checksumStart, buffer.position() - checksumStart);
+                checksumStart = 0;
+            }
+            buffer.flip();
+            flushed += buffer.remaining();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Buffered reader of the values in a repository file
+     */
+    private static final class Input implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 checksum = new CRC32();
+        private int checksumStart = -1;
+
+        private Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        // returns the position in the file of the next byte to read
+        private long position() throws IOException {
+            return channel.position() - buffer.remaining();
+        }
+
+        private boolean hasRemaining() throws IOException {
+            if (buffer.hasRemaining())
+                return true;
+            if (checksumStart >= 0) {
+                checksum.update(buffer.array(), checksumStart, buffer.position() - checksumStart);
+                checksumStart = 0;
+            }
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            return read > 0;
+        }
+
+        // starts a checksum over the bytes read from now on
+        private void beginChecksum() {
+            checksum.reset();
+            checksumStart = buffer.position();
+        }
+
+        // returns the checksum of the bytes read since beginChecksum
+        private int endChecksum() {
+            checksum.update(buffer.array(), checksumStart, buffer.position() - checksumStart);
+            checksumStart = -1;
+            return (int) checksum.getValue();
+        }
+
+        private int readInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new IOException("Malformed repository: variable-length integer is too long");
+        }
+
+        // reads a count of things that each take at least a byte, so a damaged count can't claim more of them than
+        // the file holds
+        private int readCount() throws IOException {
+            int count = readVarInt();
+            if (count < 0)
+                throw new IOException("Malformed repository: negative count " + count);
+            if (count > channel.size() - position())
+                throw new EOFException("Malformed repository: count " + count + " runs past the end of the file");
+            return count;
+        }
+
+        // reads an index into a table of the given length, such as the file dictionary
+        private int readIndex(int length) throws IOException {
+            int index = readVarInt();
+            if (index < 0 || index >= length)
+                throw new IOException("Malformed repository: index " + index + " is out of range for " + length
+                        + " entries");
+            return index;
+        }
+
+        private long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        private IntList readLineNumbers() throws IOException {
+            int lineCount = readVarInt();
+            if (lineCount < 0)
+                throw new IOException("Malformed repository: negative line count " + lineCount);
+            if (lineCount > channel.size() - position())
+                throw new EOFException("Malformed repository: line numbers run past the end of the file");
+            IntList lineNumbers = new IntList(lineCount);
+            int lineNumber = 0;
+            for (int i = 0; i < lineCount; i++) {
+                lineNumber += unZigZag(readVarInt());
+                lineNumbers.add(lineNumber);
+            }
+            return lineNumbers;
+        }
+
+        private FileMetadata readMetadata() throws IOException {
+            long size = readLong();
+            long lastModified = readLong();
+            return new FileMetadata(size, lastModified, readBytes());
+        }
+
+        private String readString() throws IOException {
+            int length = readVarInt();
+            if (length < 0)
+                throw new IOException("Malformed repository: negative length " + length);
+            if (length > channel.size() - position())
+                throw new EOFException("Malformed repository: string runs past the end of the file");
+            if (length <= buffer.capacity()) {
+                require(length);
+                String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+                return value;
+            }
+            return new String(readBytes(length), StandardCharsets.UTF_8);
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = readVarInt();
+            if (length < 0)
+                throw new IOException("Malformed repository: negative length " + length);
+            if (length > channel.size() - position())
+                throw new EOFException("Malformed repository: bytes run past the end of the file");
+            return readBytes(length);
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int chunk = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, chunk);
+                offset += chunk;
+            }
+            return bytes;
+        }
+
+        // helper method to make sure the given number of bytes, at most the buffer size, can be read from the buffer
+        private void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes)
+                return;
+            if (checksumStart >= 0) {
+                checksum.update(buffer.array(), checksumStart, buffer.position() - checksumStart);
+                checksumStart = 0;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0)
+                    throw new EOFException("Malformed repository: unexpected end of file");
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package main.utils;
+
+import main.datastructures.AVLTree;
+import main.datastructures.BSTree;
+import main.datastructures.BSTreeNode;
+import main.datastructures.IntList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class answers word lookups straight from a saved repository file, without loading the whole BST.
+ * The repository file is memory-mapped and its offset table is binary-searched, so a lookup only touches the
+ * pages holding the words it compares against. Files indexed after the repository file was written are read
+ * from the journal file, which is small, and take the place of what the repository file says about them.
+ * Words are compared ignoring case, like WordNode does.
+ */
+public class RepositoryIndex {
+
+    /**
+     * The repository file is mapped in regions of 2^30 bytes by default, since one mapping can't be larger than 2 GB
+     */
+    private static final int REGION_BITS = 30;
+
+    /**
+     * The log2 of the size of a mapped region
+     */
+    private final int regionBits;
+
+    /**
+     * The mapped regions of the repository file
+     */
+    private final ByteBuffer[] regions;
+
+    /**
+     * The position of the offset table in the repository file
+     */
+    private final long tableOffset;
+
+    /**
+     * The number of words in the repository file
+     */
+    private final int wordCount;
+
+    /**
+     * The FileDictionary ids of the file names in the dictionary of the repository file
+     */
+    private final int[] fileIds;
+
+    /**
+     * The words of the files in the journal
+     */
+    private final BSTree<WordNode> journalWords = new AVLTree<>();
+
+    /**
+     * The files in the journal, whose line numbers in the repository file are out of date
+     */
+    private final Set<String> journalFiles;
+
+    /**
+     * Opens a repository file and its journal for lookups.
+     *
+     * @param repositoryFile the repository file
+     * @param journalFile    the journal file, which doesn't have to exist
+     * @throws IOException if the repository file cannot be read or has no offset table
+     */
+    public RepositoryIndex(Path repositoryFile, Path journalFile) throws IOException {
+        this(repositoryFile, journalFile, REGION_BITS);
+    }
+
+    /**
+     * Opens a repository file and its journal for lookups, mapping the repository file in regions of the given size.
+     * Smaller regions only make sense for testing how values that cross from one region to the next are read.
+     *
+     * @param repositoryFile the repository file
+     * @param journalFile    the journal file, which doesn't have to exist
+     * @param regionBits     the log2 of the size of a mapped region, from 0 to 30
+     * @throws IOException if the repository file cannot be read or has no offset table
+     */
+    public RepositoryIndex(Path repositoryFile, Path journalFile, int regionBits) throws IOException {
+        if (regionBits < 0 || regionBits > REGION_BITS)
+            throw new IllegalArgumentException("Region bits must be from 0 to " + REGION_BITS + ": " + regionBits);
+        this.regionBits = regionBits;
+        try (FileChannel channel = FileChannel.open(repositoryFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            regions = new ByteBuffer[(int) ((size + (1L << regionBits) - 1) >>> regionBits)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << regionBits;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(1L << regionBits, size - start));
+            }
+            if (size < 4 + RepositoryFormat.TRAILER_SIZE || getInt(0) != RepositoryFormat.MAGIC
+                    || getInt(size - 4) != RepositoryFormat.MAGIC)
+                throw new IOException("Not a WordTracker repository: " + repositoryFile);
+
+            Cursor cursor = new Cursor(4);
+            int version = cursor.readVarInt();
+            if (version < 2 || version > RepositoryFormat.VERSION)
+                throw new IOException("Repository has no offset table, save it again to add one: " + repositoryFile);
+            fileIds = new int[cursor.readVarInt()];
+            for (int i = 0; i < fileIds.length; i++)
+                fileIds[i] = FileDictionary.getId(cursor.readString());
+            if (version >= 3)
+                cursor.skipMetadata();
+            wordCount = cursor.readVarInt();
+            tableOffset = getLong(size - RepositoryFormat.TRAILER_SIZE);
+        }
+        Map<String, RepositoryFormat.JournalRecord> records;
+        try {
+            records = RepositoryFormat.readJournal(journalFile, false).getRecords();
+        } catch (NoSuchFileException ex) {
+            records = Collections.emptyMap();
+        }
+        journalFiles = new HashSet<>();
+        for (RepositoryFormat.JournalRecord record : records.values()) {
+            if (record.getWordNodes() == null)
+                continue;
+            journalFiles.add(record.getFilename());
+            for (WordNode wordNode : record.getWordNodes()) {
+                WordNode resident = journalWords.getOrAdd(wordNode);
+                if (resident != wordNode)
+                    resident.merge(wordNode);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of words in the repository file, not counting words only found in the journal.
+     *
+     * @return the number of words in the repository file
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * Looks up a single word.
+     *
+     * @param word the word to look up
+     * @return the WordNode for the word, or null if the word is not in the repository
+     */
+    public WordNode lookup(String word) {
+        String foldedWord = WordNode.foldCase(word);
+        int index = lowerBound(foldedWord);
+        WordNode saved = index < wordCount && WordNode.foldCase(wordAt(index)).equals(foldedWord) ? wordNodeAt(index) : null;
+        BSTreeNode<WordNode> journalNode = journalWords.search(new WordNode(word));
+        return combine(saved, journalNode == null ? null : journalNode.getElement());
+    }
+
+    /**
+     * Looks up every word that starts with a prefix, ignoring case.
+     *
+     * @param prefix the start of the words to look up
+     * @return the WordNodes of the words, in alphabetical order
+     */
+    public List<WordNode> findPrefix(String prefix) {
+        String foldedPrefix = WordNode.foldCase(prefix);
+        return find(foldedPrefix, null, new WordQuery(journalWords).findPrefix(prefix));
+    }
+
+    /**
+     * Looks up every word that matches a wildcard pattern, ignoring case, see WordQuery.
+     *
+     * @param pattern the pattern the words have to match
+     * @return the WordNodes of the words, in alphabetical order
+     */
+    public List<WordNode> findPattern(String pattern) {
+        String foldedPattern = WordNode.foldCase(pattern);
+        return find(WordQuery.literalPrefix(foldedPattern), foldedPattern,
+                new WordQuery(journalWords).findPattern(pattern));
+    }
+
+    // helper method to walk the saved words that start with a folded prefix, keeping the ones that match a folded
+    // pattern, or all of them if there is no pattern, and to combine them with the matching words of the journal
+    private List<WordNode> find(String foldedPrefix, String foldedPattern, List<WordNode> journalMatches) {
+        List<WordNode> matches = new ArrayList<>();
+        int journalIndex = 0;
+        for (int index = lowerBound(foldedPrefix); index < wordCount; index++) {
+            String word = WordNode.foldCase(wordAt(index));
+            if (!word.startsWith(foldedPrefix))
+                break;
+            if (foldedPattern != null && !WordQuery.matchesFolded(foldedPattern, word))
+                continue;
+            // words only found in the journal go before this one
+            while (journalIndex < journalMatches.size()
+                    && journalMatches.get(journalIndex).getFoldedWord().compareTo(word) < 0)
+                addIfPresent(matches, combine(null, journalMatches.get(journalIndex++)));
+            WordNode journalNode = null;
+            if (journalIndex < journalMatches.size()
+                    && journalMatches.get(journalIndex).getFoldedWord().equals(word))
+                journalNode = journalMatches.get(journalIndex++);
+            addIfPresent(matches, combine(wordNodeAt(index), journalNode));
+        }
+        while (journalIndex < journalMatches.size())
+            addIfPresent(matches, combine(null, journalMatches.get(journalIndex++)));
+        return matches;
+    }
+
+    // helper method to find the index of the first word that is not smaller than the given folded one
+    private int lowerBound(String foldedWord) {
+        int low = 0;
+        int high = wordCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (WordNode.foldCase(wordAt(middle)).compareTo(foldedWord) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    // helper method to keep the saved line numbers of files that are not in the journal, and add the journal's
+    private WordNode combine(WordNode saved, WordNode journal) {
+        if (journal == null && (saved == null || journalFiles.isEmpty()))
+            return saved;
+        WordNode combined = new WordNode(saved != null ? saved.getWord() : journal.getWord());
+        if (saved != null) {
+            for (int i = 0; i < saved.getFileCount(); i++) {
+                if (!journalFiles.contains(saved.getFilename(i)))
+                    combined.replaceFileLines(saved.getFileId(i), saved.getLineNumbers(i));
+            }
+        }
+        if (journal != null)
+            combined.merge(journal);
+        return combined.getFileCount() == 0 ? null : combined;
+    }
+
+    private static void addIfPresent(List<WordNode> wordNodes, WordNode wordNode) {
+        if (wordNode != null)
+            wordNodes.add(wordNode);
+    }
+
+    // helper method to read the text of the word at an index of the offset table
+    private String wordAt(int index) {
+        return new Cursor(getLong(tableOffset + 8L * index)).readString();
+    }
+
+    // helper method to read the word at an index of the offset table with all its line numbers
+    private WordNode wordNodeAt(int index) {
+        Cursor cursor = new Cursor(getLong(tableOffset + 8L * index));
+        WordNode wordNode = new WordNode(cursor.readString());
+        int fileCount = cursor.readVarInt();
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = fileIds[cursor.readVarInt()];
+            int lineCount = cursor.readVarInt();
+            IntList lineNumbers = new IntList(lineCount);
+            int lineNumber = 0;
+            for (int j = 0; j < lineCount; j++) {
+                lineNumber += RepositoryFormat.unZigZag(cursor.readVarInt());
+                lineNumbers.add(lineNumber);
+            }
+            wordNode.replaceFileLines(fileId, lineNumbers);
+        }
+        return wordNode;
+    }
+
+    private byte get(long position) {
+        return regions[(int) (position >>> regionBits)].get((int) (position & ((1 << regionBits) - 1)));
+    }
+
+    private int getInt(long position) {
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+            value = (value << 8) | (get(position + i) & 0xFF);
+        return value;
+    }
+
+    private long getLong(long position) {
+        return ((long) getInt(position) << 32) | (getInt(position + 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads the values of the repository file one after another from a position
+     */
+    private final class Cursor {
+        private long position;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = get(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        }
+
+        // helper method to skip the metadata of the indexed files, which lookups don't need
+        private void skipMetadata() {
+            int metadataCount = readVarInt();
+            for (int i = 0; i < metadataCount; i++) {
+                readVarInt();
+                position += 16;
+                int hashLength = readVarInt();
+                position += hashLength;
+            }
+        }
+
+        private String readString() {
+            byte[] bytes = new byte[readVarInt()];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = get(position++);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package main.utils;
 
+import main.datastructures.IntList;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * This class represents an object to be stored in the node of a word tree. A WordNode contains a word, the line numbers where it occurs, and the filenames it occurs in.
- * WordNode implements Comparable and Serializable.
+ * Files are referred to by their FileDictionary id and kept sorted by id, so a word in one file costs two one-element arrays rather than a map.
+ * The case-folded word and its first characters packed into a long are computed once, so comparing two WordNodes is
+ * usually a single long comparison rather than folding both words again.
+ * WordNode implements Comparable and Serializable. Since ids are only valid while the program runs, a serialized
+ * WordNode holds the names of its files, which get ids again when it is read.
  */
 public class WordNode implements Comparable<WordNode>, Serializable {
 
     /**
      *  The serialVersion UID
      */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    private static final int[] NO_FILE_IDS = new int[0];
+    private static final IntList[] NO_FILE_LINES = new IntList[0];
 
     /**
      * The word
@@ -23,9 +34,29 @@ public class WordNode implements Comparable<WordNode>, Serializable {
     private String word;
 
     /**
-     * A map to store the line numbers and file names
+     * The word with every character folded the way String.compareToIgnoreCase folds them
      */
-    private Map<String, List<Integer>> fileLinesMap;
+    private final String foldedWord;
+
+    /**
+     * The first 8 characters of the folded word, one per byte, compared unsigned before the folded word
+     */
+    private final long prefix;
+
+    /**
+     * The ids of the files the word occurs in, in ascending order, see FileDictionary. They are serialized as names.
+     */
+    private transient int[] fileIds;
+
+    /**
+     * The line numbers of the word in each file, at the same index as the id of the file
+     */
+    private IntList[] fileLines;
+
+    /**
+     * The number of files the word occurs in
+     */
+    private int fileCount;
 
     /**
      * A constructor for a WordNode
@@ -34,17 +65,138 @@ public class WordNode implements Comparable<WordNode>, Serializable {
      */
     public WordNode(String word) {
         this.word = word;
-        this.fileLinesMap = new HashMap<>();
+        this.foldedWord = foldCase(word);
+        this.prefix = prefixOf(foldedWord);
+        this.fileIds = NO_FILE_IDS;
+        this.fileLines = NO_FILE_LINES;
     }
 
     /**
-     * Adds a file name and line number to the fileLinesMap
+     * Adds a file name and line number to the WordNode
      *
      * @param filename The name of the file where the word is found
      * @param lineNumber The line number where the word is found
      */
     public void addFileAndLineNumber(String filename, int lineNumber) {
-        fileLinesMap.computeIfAbsent(filename, k -> new ArrayList<>()).add(lineNumber);
+        addFileAndLineNumber(FileDictionary.getId(filename), lineNumber);
+    }
+
+    /**
+     * Adds a file id and line number to the WordNode
+     *
+     * @param fileId The id of the file where the word is found
+     * @param lineNumber The line number where the word is found
+     */
+    public void addFileAndLineNumber(int fileId, int lineNumber) {
+        // the words of a file are added together, so the file is usually the last one added
+        int index = fileCount > 0 && fileIds[fileCount - 1] == fileId ? fileCount - 1 : indexOf(fileId);
+        if (index < 0)
+            index = insertFile(-index - 1, fileId, new IntList());
+        fileLines[index].add(lineNumber);
+    }
+
+    /**
+     * Adds a file name and line number to the WordNode while other threads may be adding to this WordNode too.
+     * The update is synchronized on this WordNode, so threads only wait for each other when they add the same word.
+     *
+     * @param filename The name of the file where the word is found
+     * @param lineNumber The line number where the word is found
+     */
+    public synchronized void addFileAndLineNumberConcurrently(String filename, int lineNumber) {
+        addFileAndLineNumber(filename, lineNumber);
+    }
+
+    /**
+     * Adds a file id and line number to the WordNode while other threads may be adding to this WordNode too.
+     *
+     * @param fileId The id of the file where the word is found
+     * @param lineNumber The line number where the word is found
+     */
+    public synchronized void addFileAndLineNumberConcurrently(int fileId, int lineNumber) {
+        addFileAndLineNumber(fileId, lineNumber);
+    }
+
+    /**
+     * Replaces the line numbers recorded for a file. An empty list removes the file from this WordNode.
+     *
+     * @param filename The name of the file
+     * @param lineNumbers The line numbers where the word is found in that file
+     */
+    public void replaceFileLines(String filename, IntList lineNumbers) {
+        replaceFileLines(FileDictionary.getId(filename), lineNumbers);
+    }
+
+    /**
+     * Replaces the line numbers recorded for a file. An empty list removes the file from this WordNode.
+     *
+     * @param fileId The id of the file
+     * @param lineNumbers The line numbers where the word is found in that file
+     */
+    public void replaceFileLines(int fileId, IntList lineNumbers) {
+        int index = indexOf(fileId);
+        if (lineNumbers.isEmpty()) {
+            if (index >= 0) {
+                System.arraycopy(fileIds, index + 1, fileIds, index, fileCount - index - 1);
+                System.arraycopy(fileLines, index + 1, fileLines, index, fileCount - index - 1);
+                fileLines[--fileCount] = null;
+            }
+        } else if (index >= 0) {
+            fileLines[index] = lineNumbers;
+        } else {
+            insertFile(-index - 1, fileId, lineNumbers);
+        }
+    }
+
+    /**
+     * Removes the line numbers recorded for any of the given files.
+     *
+     * @param removedFileIds The ids of the files to remove
+     */
+    public void removeFiles(BitSet removedFileIds) {
+        int kept = 0;
+        for (int i = 0; i < fileCount; i++) {
+            if (removedFileIds.get(fileIds[i]))
+                continue;
+            fileIds[kept] = fileIds[i];
+            fileLines[kept++] = fileLines[i];
+        }
+        Arrays.fill(fileLines, kept, fileCount, null);
+        fileCount = kept;
+    }
+
+    /**
+     * Adds all the file names and line numbers of another WordNode for the same word to this one.
+     * Line numbers from the other node are appended after the ones already recorded for a file.
+     *
+     * @param other the WordNode whose file names and line numbers are added
+     */
+    public void merge(WordNode other) {
+        for (int i = 0; i < other.fileCount; i++) {
+            int index = indexOf(other.fileIds[i]);
+            if (index < 0)
+                index = insertFile(-index - 1, other.fileIds[i], new IntList(other.fileLines[i].size()));
+            fileLines[index].addAll(other.fileLines[i]);
+        }
+    }
+
+    // helper method to find a file id, returns its index or (-(insertion point) - 1) like Arrays.binarySearch
+    private int indexOf(int fileId) {
+        return Arrays.binarySearch(fileIds, 0, fileCount, fileId);
+    }
+
+    // helper method to make room for a file at an index, returns the index
+    private int insertFile(int index, int fileId, IntList lineNumbers) {
+        if (fileCount == fileIds.length) {
+            int capacity = Math.max(1, fileCount * 2);
+            fileIds = Arrays.copyOf(fileIds, capacity);
+            fileLines = Arrays.copyOf(fileLines, capacity);
+        }
+        System.arraycopy(fileIds, index, fileIds, index + 1, fileCount - index);
+        System.arraycopy(fileLines, index, fileLines, index + 1, fileCount - index);
+        fileIds[index] = fileId;
+        fileLines[index] = lineNumbers;
+        fileCount++;
+        return index;
     }
 
     /**
@@ -56,12 +208,88 @@ public class WordNode implements Comparable<WordNode>, Serializable {
     }
 
     /**
-     * returns the map containing the file names and line numbers.
-     *
-     * @return the map containing the file names and line numbers
+     * returns the word with its case folded, which is what WordNodes are ordered by
+     * @return the folded word
+     */
+    public String getFoldedWord() {
+        return foldedWord;
+    }
+
+    /**
+     * returns the number of files the word occurs in
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * returns the id of one of the files the word occurs in. Files are in the order of their ids.
+     * @param index the index of the file, from 0 to getFileCount() - 1
+     * @return the id of the file
+     */
+    public int getFileId(int index) {
+        checkIndex(index);
+        return fileIds[index];
+    }
+
+    /**
+     * returns the name of one of the files the word occurs in
+     * @param index the index of the file, from 0 to getFileCount() - 1
+     * @return the name of the file
+     */
+    public String getFilename(int index) {
+        return FileDictionary.getPath(getFileId(index));
+    }
+
+    /**
+     * returns the line numbers of the word in one of the files it occurs in
+     * @param index the index of the file, from 0 to getFileCount() - 1
+     * @return the line numbers in the file
+     */
+    public IntList getLineNumbers(int index) {
+        checkIndex(index);
+        return fileLines[index];
+    }
+
+    /**
+     * returns the line numbers of the word in a file
+     * @param filename the name of the file
+     * @return the line numbers in the file, or null if the word doesn't occur in it
      */
-    public Map<String, List<Integer>> getFileLinesMap() {
-        return fileLinesMap;
+    public IntList getLineNumbers(String filename) {
+        int fileId = FileDictionary.findId(filename);
+        int index = fileId >= 0 ? indexOf(fileId) : -1;
+        return index >= 0 ? fileLines[index] : null;
+    }
+
+    // helper method to serialize the names of the files in place of their ids
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < fileCount; i++)
+            out.writeUTF(FileDictionary.getPath(fileIds[i]));
+    }
+
+    // helper method to give the serialized file names ids, which may be in another order than when they were written
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (fileLines == null || fileCount < 0 || fileCount > fileLines.length)
+            throw new InvalidObjectException("Malformed WordNode: " + fileCount + " files");
+        IntList[] lines = fileLines;
+        int count = fileCount;
+        fileIds = NO_FILE_IDS;
+        fileLines = NO_FILE_LINES;
+        fileCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (lines[i] == null)
+                throw new InvalidObjectException("Malformed WordNode: no line numbers for file " + i);
+            replaceFileLines(FileDictionary.getId(in.readUTF()), lines[i]);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fileCount)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Files: " + fileCount);
     }
 
     /**
@@ -73,6 +301,58 @@ public class WordNode implements Comparable<WordNode>, Serializable {
      */
     @Override
     public int compareTo(WordNode other) {
-        return this.word.compareToIgnoreCase(other.word);
+        if (this.prefix != other.prefix)
+            return Long.compareUnsigned(this.prefix, other.prefix);
+        return this.foldedWord.compareTo(other.foldedWord);
+    }
+
+    /**
+     * Folds the case of a word, so that comparing folded words orders them like String.compareToIgnoreCase.
+     * A word that is already folded is returned as is.
+     *
+     * @param word the word to fold
+     * @return the folded word
+     */
+    public static String foldCase(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (foldCase(c) != c) {
+                char[] folded = word.toCharArray();
+                for (int j = i; j < folded.length; j++)
+                    folded[j] = foldCase(folded[j]);
+                return new String(folded);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Folds the case of a character the way String.compareToIgnoreCase does.
+     *
+     * @param c the character to fold
+     * @return the folded character
+     */
+    public static char foldCase(char c) {
+        if (c < 128)
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    // helper method to pack the first characters of a folded word into a long that orders like the word itself;
+    // a character that does not fit in a byte is stored as 0xFF and ends the prefix, so two prefixes that differ
+    // always differ first at a character the words differ at, and equal prefixes fall back to the folded words
+    private static long prefixOf(String foldedWord) {
+        long prefix = 0;
+        int length = Math.min(Long.BYTES, foldedWord.length());
+        for (int i = 0; i < length; i++) {
+            int shift = 56 - 8 * i;
+            char c = foldedWord.charAt(i);
+            if (c >= 0xFF) {
+                prefix |= 0xFFL << shift;
+                break;
+            }
+            prefix |= (long) c << shift;
+        }
+        return prefix;
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package main.utils;
+
+import main.datastructures.IntList;
+import main.datastructures.interfaces.Codec;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class converts WordNodes to bytes so they can be kept in an OffHeapBSTree.
+ * A WordNode is written as the length and UTF-8 bytes of its word, the number of files it occurs in, and for each
+ * file its FileDictionary id, the number of line numbers and the line numbers, all as 4-byte ints.
+ * Words are compared straight from the bytes, ignoring case like WordNode does, without building a String.
+ */
+public class WordNodeCodec implements Codec<WordNode>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Converts a WordNode to bytes.
+     *
+     * @param wordNode the WordNode to convert
+     * @return the bytes of the WordNode
+     */
+    @Override
+    public byte[] encode(WordNode wordNode) {
+        byte[] word = wordNode.getWord().getBytes(StandardCharsets.UTF_8);
+        int length = 4 + word.length + 4;
+        for (int i = 0; i < wordNode.getFileCount(); i++)
+            length += 8 + 4 * wordNode.getLineNumbers(i).size();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(word.length);
+        buffer.put(word);
+        buffer.putInt(wordNode.getFileCount());
+        for (int i = 0; i < wordNode.getFileCount(); i++) {
+            IntList lineNumbers = wordNode.getLineNumbers(i);
+            buffer.putInt(wordNode.getFileId(i));
+            buffer.putInt(lineNumbers.size());
+            for (int j = 0; j < lineNumbers.size(); j++)
+                buffer.putInt(lineNumbers.get(j));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Converts bytes written by encode back to a WordNode.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param offset the position of the first byte in the buffer
+     * @param length the number of bytes
+     * @return a new WordNode equal to the one that was encoded
+     */
+    @Override
+    public WordNode decode(ByteBuffer buffer, int offset, int length) {
+        WordNode wordNode = new WordNode(decodeWord(buffer, offset));
+        int position = offset + 4 + buffer.getInt(offset);
+        int fileCount = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < fileCount; i++) {
+            int fileId = buffer.getInt(position);
+            int lineCount = buffer.getInt(position + 4);
+            position += 8;
+            IntList lineNumbers = new IntList(lineCount);
+            for (int j = 0; j < lineCount; j++) {
+                lineNumbers.add(buffer.getInt(position));
+                position += 4;
+            }
+            wordNode.replaceFileLines(fileId, lineNumbers);
+        }
+        return wordNode;
+    }
+
+    /**
+     * Compares a WordNode with the encoded bytes of another, by word ignoring case.
+     *
+     * @param wordNode the WordNode to compare
+     * @param buffer   the buffer holding the bytes
+     * @param offset   the position of the first byte in the buffer
+     * @param length   the number of bytes
+     * @return a negative integer, zero, or a positive integer as the word is less than, equal to, or greater than
+     * the encoded word
+     */
+    @Override
+    public int compare(WordNode wordNode, ByteBuffer buffer, int offset, int length) {
+        String word = wordNode.getWord();
+        int wordLength = buffer.getInt(offset);
+        int common = Math.min(word.length(), wordLength);
+        for (int i = 0; i < common; i++) {
+            byte b = buffer.get(offset + 4 + i);
+            // a byte of a multi-byte character, which only the decoded word can be compared with
+            if (b < 0)
+                return wordNode.compareTo(new WordNode(decodeWord(buffer, offset)));
+            // the same folding as WordNode.compareTo
+            char c1 = WordNode.foldCase(word.charAt(i));
+            char c2 = WordNode.foldCase((char) b);
+            if (c1 != c2)
+                return c1 - c2;
+        }
+        // every byte compared was ASCII, so the encoded word has one char per byte up to here
+        return word.length() - wordLength;
+    }
+
+    private static String decodeWord(ByteBuffer buffer, int offset) {
+        byte[] word = new byte[buffer.getInt(offset)];
+        for (int i = 0; i < word.length; i++)
+            word[i] = buffer.get(offset + 4 + i);
+        return new String(word, StandardCharsets.UTF_8);
+    }
+}
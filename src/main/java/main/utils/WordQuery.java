@@ -0,0 +1,136 @@
+package main.utils;
+
+import main.datastructures.interfaces.BSTreeADT;
+import main.datastructures.interfaces.Iterator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class answers prefix and wildcard queries over a tree of WordNodes, ignoring case like WordNode does.
+ * A query only walks the range of the tree whose words start with the literal part of the query, which the tree
+ * descends to directly, so it takes time in proportion to the height of the tree and the number of words in the range
+ * rather than the size of the tree. In a wildcard pattern, '?' matches any one character and '*' matches any number
+ * of characters, including none.
+ */
+public class WordQuery {
+
+    /**
+     * The tree being queried
+     */
+    private final BSTreeADT<WordNode> tree;
+
+    /**
+     * Constructor for a WordQuery.
+     *
+     * @param tree the tree of WordNodes to query
+     */
+    public WordQuery(BSTreeADT<WordNode> tree) {
+        this.tree = tree;
+    }
+
+    /**
+     * Finds every word that starts with a prefix.
+     *
+     * @param prefix the start of the words to find
+     * @return the WordNodes of the words, in alphabetical order
+     */
+    public List<WordNode> findPrefix(String prefix) {
+        return find(WordNode.foldCase(prefix), null);
+    }
+
+    /**
+     * Finds every word that matches a wildcard pattern. A pattern without wildcards only matches the word itself.
+     *
+     * @param pattern the pattern the words have to match
+     * @return the WordNodes of the words, in alphabetical order
+     */
+    public List<WordNode> findPattern(String pattern) {
+        String foldedPattern = WordNode.foldCase(pattern);
+        return find(literalPrefix(foldedPattern), foldedPattern);
+    }
+
+    /**
+     * Checks whether a query contains wildcards.
+     *
+     * @param query the query to check
+     * @return true if the query contains '*' or '?', false otherwise
+     */
+    public static boolean isPattern(String query) {
+        return query.indexOf('*') >= 0 || query.indexOf('?') >= 0;
+    }
+
+    /**
+     * Checks whether a word matches a wildcard pattern, ignoring case.
+     *
+     * @param pattern the pattern
+     * @param word    the word
+     * @return true if the whole word matches the pattern, false otherwise
+     */
+    public static boolean matches(String pattern, String word) {
+        return matchesFolded(WordNode.foldCase(pattern), WordNode.foldCase(word));
+    }
+
+    /**
+     * Returns the part of a pattern before its first wildcard, which every matching word starts with.
+     *
+     * @param pattern the pattern
+     * @return the characters of the pattern before the first '*' or '?'
+     */
+    static String literalPrefix(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == '*' || pattern.charAt(i) == '?')
+                return pattern.substring(0, i);
+        }
+        return pattern;
+    }
+
+    /**
+     * Checks whether a folded word matches a folded pattern by backtracking. A '*' remembers where it was, and a
+     * mismatch after it retries from there with the star taking one more character. Only the last star is retried,
+     * so the worst case is O(|pattern|·|word|) comparisons, not exponential.
+     *
+     * @param pattern the folded pattern
+     * @param word    the folded word
+     * @return true if the whole word matches the pattern, false otherwise
+     */
+    static boolean matchesFolded(String pattern, String word) {
+        int patternIndex = 0;
+        int wordIndex = 0;
+        int star = -1;
+        int starMatch = 0;
+        while (wordIndex < word.length()) {
+            char c = patternIndex < pattern.length() ? pattern.charAt(patternIndex) : 0;
+            if (patternIndex < pattern.length() && c != '*' && (c == '?' || c == word.charAt(wordIndex))) {
+                patternIndex++;
+                wordIndex++;
+            } else if (patternIndex < pattern.length() && c == '*') {
+                star = patternIndex++;
+                starMatch = wordIndex;
+            } else if (star >= 0) {
+                patternIndex = star + 1;
+                wordIndex = ++starMatch;
+            } else {
+                return false;
+            }
+        }
+        while (patternIndex < pattern.length() && pattern.charAt(patternIndex) == '*')
+            patternIndex++;
+        return patternIndex == pattern.length();
+    }
+
+    // helper method to walk the words that start with a folded prefix, keeping the ones that match a folded pattern,
+    // or all of them if there is no pattern
+    private List<WordNode> find(String foldedPrefix, String foldedPattern) {
+        List<WordNode> matches = new ArrayList<>();
+        Iterator<WordNode> iterator = tree.rangeIterator(new WordNode(foldedPrefix), null);
+        while (iterator.hasNext()) {
+            WordNode wordNode = iterator.next();
+            if (!wordNode.getFoldedWord().startsWith(foldedPrefix))
+                break;
+            if (foldedPattern == null || matchesFolded(foldedPattern, wordNode.getFoldedWord()))
+                matches.add(wordNode);
+        }
+        return matches;
+    }
+}
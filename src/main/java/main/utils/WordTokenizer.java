@@ -0,0 +1,322 @@
+package main.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class splits a text file into the words tracked by a WordTracker while streaming it through a fixed size buffer.
+ * Words are separated by whitespace, and every character other than a letter, a digit, an apostrophe or a hyphen is
+ * dropped from a word. Lines end at "\n", "\r" or "\r\n" and are numbered from 1.
+ * The file is scanned byte by byte, which gives the same words as decoding it first for ASCII and UTF-8 text because
+ * all the characters that are kept or that separate words are single ASCII bytes.
+ * The file can also be memory-mapped, in which case the mapped bytes are scanned in place without being copied into a
+ * buffer on the heap. A tokenizer can be limited to a range of the file that starts at the beginning of a line, so
+ * that several tokenizers can scan one file at the same time.
+ */
+public class WordTokenizer implements Closeable {
+
+    /**
+     * The number of bytes read from the file at a time
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of bytes mapped from the file at a time when the file is memory-mapped, unless it is set
+     */
+    private static final long MAPPED_REGION_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Byte classes used by the scanner
+     */
+    private static final byte SKIP = 0, WORD = 1, SPACE = 2, LINE_FEED = 3, CARRIAGE_RETURN = 4;
+
+    /**
+     * The class of every byte value
+     */
+    private static final byte[] BYTE_CLASSES = new byte[256];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++)
+            BYTE_CLASSES[c] = WORD;
+        for (char c = 'A'; c <= 'Z'; c++)
+            BYTE_CLASSES[c] = WORD;
+        for (char c = '0'; c <= '9'; c++)
+            BYTE_CLASSES[c] = WORD;
+        BYTE_CLASSES['\''] = WORD;
+        BYTE_CLASSES['-'] = WORD;
+        BYTE_CLASSES[' '] = SPACE;
+        BYTE_CLASSES['\t'] = SPACE;
+        BYTE_CLASSES[0x0B] = SPACE;
+        BYTE_CLASSES['\f'] = SPACE;
+        BYTE_CLASSES['\n'] = LINE_FEED;
+        BYTE_CLASSES['\r'] = CARRIAGE_RETURN;
+    }
+
+    /**
+     * The channel the text is read from
+     */
+    private final FileChannel channel;
+
+    /**
+     * Whether the file is memory-mapped instead of read into a buffer
+     */
+    private final boolean memoryMapped;
+
+    /**
+     * The number of bytes mapped from the file at a time
+     */
+    private long mappedRegionSize = MAPPED_REGION_SIZE;
+
+    /**
+     * The buffer holding the bytes that have been read or mapped but not scanned yet
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The position in the file of the next block to read or map
+     */
+    private long position;
+
+    /**
+     * The position in the file where tokenizing stops
+     */
+    private final long end;
+
+    /**
+     * The bytes of the word being scanned
+     */
+    private byte[] word = new byte[64];
+
+    /**
+     * The number of the line being scanned
+     */
+    private int lineNumber;
+
+    /**
+     * The number of the line the last word was found on
+     */
+    private int wordLineNumber;
+
+    /**
+     * Whether the last byte scanned was a carriage return, so a following line feed doesn't start another line
+     */
+    private boolean afterCarriageReturn;
+
+    /**
+     * Opens the given file for tokenizing.
+     *
+     * @param filename the name of the file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public WordTokenizer(String filename) throws IOException {
+        this(filename, false);
+    }
+
+    /**
+     * Opens the given file for tokenizing, optionally memory-mapping it.
+     * Mapping lets files larger than the heap be scanned without copying their bytes onto the heap.
+     *
+     * @param filename     the name of the file to read
+     * @param memoryMapped true to map the file into memory, false to read it through a buffer
+     * @throws IOException if the file cannot be opened
+     */
+    public WordTokenizer(String filename, boolean memoryMapped) throws IOException {
+        this(filename, 0, Long.MAX_VALUE, 1, memoryMapped);
+    }
+
+    /**
+     * Opens a range of the given file for tokenizing. The range must start at the beginning of a line.
+     *
+     * @param filename        the name of the file to read
+     * @param start           the position of the first byte to scan
+     * @param end             the position after the last byte to scan, capped at the size of the file
+     * @param firstLineNumber the line number of the line the range starts on
+     * @param memoryMapped    true to map the file into memory, false to read it through a buffer
+     * @throws IOException if the file cannot be opened
+     */
+    public WordTokenizer(String filename, long start, long end, int firstLineNumber, boolean memoryMapped)
+            throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        this.memoryMapped = memoryMapped;
+        this.position = start;
+        this.end = Math.min(end, channel.size());
+        this.lineNumber = firstLineNumber;
+        this.buffer = memoryMapped ? ByteBuffer.allocate(0) : ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+    }
+
+    /**
+     * Sets the number of bytes mapped from the file at a time when it is memory-mapped. Smaller regions take up
+     * less address space, and words and line breaks that cross from one region to the next are still found.
+     *
+     * @param mappedRegionSize the number of bytes to map at a time, at least 1
+     */
+    public void setMappedRegionSize(long mappedRegionSize) {
+        if (mappedRegionSize < 1)
+            throw new IllegalArgumentException("Mapped region size must be at least 1");
+        this.mappedRegionSize = mappedRegionSize;
+    }
+
+    /**
+     * Returns the next word in the file.
+     *
+     * @return the next word, or null if there are no words left
+     * @throws IOException if the file cannot be read
+     */
+    public String nextWord() throws IOException {
+        int length = 0;
+        while (buffer.hasRemaining() || fill()) {
+            byte b = buffer.get();
+            switch (BYTE_CLASSES[b & 0xFF]) {
+                case WORD:
+                    if (length == 0)
+                        wordLineNumber = lineNumber;
+                    if (length == word.length)
+                        word = Arrays.copyOf(word, length * 2);
+                    word[length++] = b;
+                    afterCarriageReturn = false;
+                    break;
+                case SKIP:
+                    afterCarriageReturn = false;
+                    break;
+                case SPACE:
+                    afterCarriageReturn = false;
+                    if (length > 0)
+                        return toWord(length);
+                    break;
+                case LINE_FEED:
+                    if (!afterCarriageReturn)
+                        lineNumber++;
+                    afterCarriageReturn = false;
+                    if (length > 0)
+                        return toWord(length);
+                    break;
+                case CARRIAGE_RETURN:
+                    lineNumber++;
+                    afterCarriageReturn = true;
+                    if (length > 0)
+                        return toWord(length);
+                    break;
+            }
+        }
+        return length > 0 ? toWord(length) : null;
+    }
+
+    /**
+     * Returns the line number of the last word returned by nextWord.
+     *
+     * @return the line number of the last word
+     */
+    public int getLineNumber() {
+        return wordLineNumber;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Finds the start of the first line that begins at or after the given position of a file.
+     *
+     * @param channel  the file to search
+     * @param position the position to start searching from
+     * @return the position of the start of the line, or the size of the file if no line starts there
+     * @throws IOException if the file cannot be read
+     */
+    public static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position <= 0)
+            return 0;
+        ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+        // a line starts at position if the byte before it ends a line, unless that byte is a "\r" of a "\r\n"
+        long current = position - 1;
+        boolean afterCarriageReturn = false;
+        while (true) {
+            block.clear();
+            int read = channel.read(block, current);
+            if (read < 0)
+                return channel.size();
+            block.flip();
+            while (block.hasRemaining()) {
+                byte b = block.get();
+                if (afterCarriageReturn)
+                    return b == '\n' ? current + 1 : current;
+                if (b == '\n')
+                    return current + 1;
+                afterCarriageReturn = b == '\r';
+                current++;
+            }
+        }
+    }
+
+    /**
+     * Counts the lines that end in a range of a file. The range must start at the beginning of a line and must not
+     * end between the "\r" and the "\n" of a "\r\n".
+     *
+     * @param channel the file to read
+     * @param start   the position of the first byte to count
+     * @param end     the position after the last byte to count
+     * @return the number of line endings in the range
+     * @throws IOException if the file cannot be read
+     */
+    public static int countLines(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+        int lines = 0;
+        boolean afterCarriageReturn = false;
+        long current = start;
+        while (current < end) {
+            block.clear();
+            block.limit((int) Math.min(block.capacity(), end - current));
+            int read = channel.read(block, current);
+            if (read < 0)
+                break;
+            current += read;
+            byte[] bytes = block.array();
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '\r' || (b == '\n' && !afterCarriageReturn))
+                    lines++;
+                afterCarriageReturn = b == '\r';
+            }
+        }
+        return lines;
+    }
+
+    // helper method to read or map the next block of the range, returns false at the end of the range
+    private boolean fill() throws IOException {
+        long remaining = end - position;
+        if (remaining <= 0)
+            return false;
+        if (memoryMapped) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(remaining, mappedRegionSize));
+            position += buffer.capacity();
+            return true;
+        }
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), remaining));
+        int read = 0;
+        while (read == 0)
+            read = channel.read(buffer, position);
+        buffer.flip();
+        if (read < 0)
+            return false;
+        position += read;
+        return true;
+    }
+
+    // every byte of a word is ASCII, so each one maps straight to a char
+    private String toWord(int length) {
+        return new String(word, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,12 +1,36 @@
 package main.utils;
 
+import main.datastructures.AVLTree;
 import main.datastructures.BSTree;
-import main.datastructures.BSTreeNode;
+import main.datastructures.ConcurrentBSTree;
+import main.datastructures.interfaces.BSTreeADT;
+import main.datastructures.interfaces.Iterator;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This class represents a WordTracker that takes in words from a text file and adds them a BST with WordNodes.
@@ -15,9 +39,36 @@ import java.util.List;
 public class WordTracker {
 
     /**
-     * The name of the binary file which will contain a BST of WordNodes
+     * The name of the binary file which will contain the WordNodes of the BST, see RepositoryFormat
      */
-    private static final String REPOSITORY_FILE = "repository.ser";  // specify the path to the file
+    private static final String REPOSITORY_FILE = "repository.dat";  // specify the path to the file
+
+    /**
+     * The name of the journal file that files indexed since the repository file was written are appended to
+     */
+    private static final String JOURNAL_FILE = "repository.log";
+
+    /**
+     * The name of the file the BST was serialized to before the binary file, see LegacyRepository
+     */
+    private static final String LEGACY_REPOSITORY_FILE = "repository.ser";
+
+    /**
+     * The default smallest chunk a large file is split into for parallel indexing
+     */
+    private static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * The number of postings bulk loading holds in memory before spilling them to disk, shared by the indexing threads
+     */
+    private static final int BULK_LOAD_POSTINGS = 4 * 1024 * 1024;
+
+    /**
+     * The binary file and the journal file of this WordTracker
+     */
+    private final Path repositoryFile;
+    private final Path journalFile;
+    private final Path legacyRepositoryFile;
 
     /**
      * The BST that will hold WordNodes
@@ -25,39 +76,279 @@ public class WordTracker {
     private BSTree<WordNode> wordTree;
 
     /**
-     * No argument constructor for WordTracker
+     * Whether the BST is an AVLTree
+     */
+    private final boolean balanced;
+
+    /**
+     * For each file indexed since the BST was last saved, the WordNodes that occur in it, or null if only the
+     * metadata of the file changed
+     */
+    private final Map<String, Set<WordNode>> unsavedFiles = new LinkedHashMap<>();
+
+    /**
+     * The metadata of every indexed file, used to skip files that have not changed
+     */
+    private final Map<String, FileMetadata> fileMetadata = new LinkedHashMap<>();
+
+    /**
+     * Whether the saved files were written in an older format, so the next save rewrites them
+     */
+    private boolean upgradeOnSave;
+
+    /**
+     * Why the saved files could not be read, or null if they were read. Saving is refused while it is set rather
+     * than overwriting what is in them
+     */
+    private IOException readFailure;
+
+    /**
+     * Why a damaged record at the end of the journal file was cut off it when it was read, or null if it was whole
+     */
+    private String journalDamage;
+
+    /**
+     * The thread the BST is saved on in the background, created by the first background save
+     */
+    private ExecutorService persister;
+
+    /**
+     * Whether input files are memory-mapped instead of read through a buffer
+     */
+    private boolean memoryMapped;
+
+    /**
+     * Whether words are sorted and the BST rebuilt from them instead of inserting the words one at a time
+     */
+    private boolean bulkLoad;
+
+    /**
+     * Whether the chunks of a large file are indexed into one tree shared by the indexing threads
+     */
+    private boolean sharedTree;
+
+    /**
+     * The number of threads used to index several files at once
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of threads used to hash files and find where their chunks start
+     */
+    private int readParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The smallest chunk a large file is split into for parallel indexing
+     */
+    private long chunkSize = MIN_CHUNK_SIZE;
+
+    /**
+     * No argument constructor for WordTracker. New repositories are stored in a self-balancing tree.
      */
     public WordTracker() {
-        wordTree = readTreeFromFile();
-        if (wordTree == null) {
-            wordTree = new BSTree<>();
+        this(true);
+    }
+
+    /**
+     * Constructor for WordTracker that picks the kind of tree used when no repository exists yet.
+     * A balanced tree keeps lookups logarithmic even when the input words are already sorted.
+     *
+     * @param balanced true to store new repositories in an AVLTree, false for a plain BSTree
+     */
+    public WordTracker(boolean balanced) {
+        this(Paths.get(""), balanced);
+    }
+
+    /**
+     * Constructor for WordTracker that keeps its repository in the given directory instead of the working directory.
+     *
+     * @param directory the directory holding the binary file and the journal file
+     * @param balanced  true to store new repositories in an AVLTree, false for a plain BSTree
+     */
+    public WordTracker(Path directory, boolean balanced) {
+        this.repositoryFile = directory.resolve(REPOSITORY_FILE);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.legacyRepositoryFile = directory.resolve(LEGACY_REPOSITORY_FILE);
+        this.balanced = balanced;
+        List<WordNode> wordNodes = readTreeFromFile();
+        if (wordNodes == null) {
+            wordNodes = Collections.emptyList();
+        }
+        wordTree = balanced ? AVLTree.buildFromSorted(wordNodes) : BSTree.buildFromSorted(wordNodes);
+        replayJournal();
+    }
+
+    /**
+     * Returns the WordNode objects read from a binary file, in alphabetical order. If there is no binary file but
+     * there is a BST serialized by an older version, that BST is converted instead and written to the binary file
+     * the next time the BST is saved.
+     *
+     * @return the WordNode objects of the saved BST, or null if there is no saved BST
+     */
+    private List<WordNode> readTreeFromFile() {
+        try {
+            List<WordNode> wordNodes = RepositoryFormat.read(repositoryFile, fileMetadata);
+            // files saved without metadata are rewritten with the metadata of the files indexed from now on
+            upgradeOnSave = fileMetadata.isEmpty() && !wordNodes.isEmpty();
+            return wordNodes;
+        } catch (NoSuchFileException ex) {
+            return readLegacyTree();
+        } catch (IOException ex) {
+            readFailure = new IOException("Failed to read tree from file: " + ex.getMessage(), ex);
+            return null;
         }
     }
 
     /**
-     * Returns a BST populated with WordNode objects read from a binary file.
+     * Returns the WordNode objects of a BST serialized by an older version, in alphabetical order. A BST that cannot
+     * be converted is a read failure like a damaged binary file, so a save cannot put a binary file in front of it.
      *
-     * @return a BST populated with WordNode objects
+     * @return the WordNode objects of the serialized BST, or null if there is none or it cannot be converted
      */
-    private BSTree<WordNode> readTreeFromFile() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(REPOSITORY_FILE))) {
-            return (BSTree<WordNode>) ois.readObject();
-        } catch (IOException | ClassNotFoundException ex) {
+    private List<WordNode> readLegacyTree() {
+        if (!Files.exists(legacyRepositoryFile))
             return null;
+        try {
+            List<WordNode> wordNodes = LegacyRepository.read(legacyRepositoryFile);
+            System.out.println("Converting " + legacyRepositoryFile + " to " + repositoryFile);
+            return wordNodes;
+        } catch (IOException ex) {
+            readFailure = new IOException("Failed to convert " + legacyRepositoryFile + ", it is not migrated: "
+                    + ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Applies the files indexed after the binary file was written, which were appended to the journal file.
+     * The words of a file in the journal replace everything the binary file said about that file.
+     */
+    private void replayJournal() {
+        try {
+            RepositoryFormat.Journal journal = RepositoryFormat.readJournal(journalFile);
+            journalDamage = journal.getDamage();
+            Map<String, RepositoryFormat.JournalRecord> records = journal.getRecords();
+            Set<String> replacedFiles = new HashSet<>();
+            for (RepositoryFormat.JournalRecord record : records.values()) {
+                if (record.getWordNodes() != null)
+                    replacedFiles.add(record.getFilename());
+            }
+            removeFiles(replacedFiles);
+            for (RepositoryFormat.JournalRecord record : records.values()) {
+                if (record.getMetadata() != null)
+                    fileMetadata.put(record.getFilename(), record.getMetadata());
+                else
+                    upgradeOnSave = true;
+                if (record.getWordNodes() != null)
+                    addWords(PostingSorter.SortedRun.of(record.getWordNodes()), null);
+            }
+        } catch (NoSuchFileException ex) {
+            // nothing has been indexed since the binary file was written
+        } catch (IOException ex) {
+            readFailure = new IOException("Failed to read journal from file: " + ex.getMessage(), ex);
         }
     }
 
     /**
-     * Saves the BST to a binary file.
+     * Saves the BST to a binary file. Only the files indexed since the last save are appended to a journal file,
+     * so saving costs time in proportion to those files. Once the journal grows to half the size of the binary file,
+     * the whole BST is written to the binary file again and the journal is emptied.
+     * Nothing is saved if the binary file or the journal file could not be read, so what is in them is not lost.
      */
     public void saveTreeToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(REPOSITORY_FILE))) {
-            oos.writeObject(wordTree);
+        try {
+            checkReadable();
+            if (Files.exists(repositoryFile) && !upgradeOnSave) {
+                if (!unsavedFiles.isEmpty())
+                    RepositoryFormat.appendJournal(journalFile, unsavedFiles, fileMetadata);
+                unsavedFiles.clear();
+                if (!Files.exists(journalFile) || Files.size(journalFile) < Files.size(repositoryFile) / 2)
+                    return;
+            }
+            compact();
         } catch (IOException ex) {
             System.err.println("Failed to save tree to file: " + ex.getMessage());
         }
     }
 
+    /**
+     * Saves the BST on a thread of its own, see saveTreeToFile, so a report can be written while it is saved.
+     * Saving only reads the BST, which must not be changed until the save is done. Every background save of this
+     * WordTracker runs on the same thread, so a save starts only once the one before it is done. The thread does not
+     * keep the JVM running, so wait for the Future before exiting.
+     * @return a Future that is done once the BST is saved
+     */
+    public synchronized Future<?> saveTreeToFileInBackground() {
+        if (persister == null) {
+            persister = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "WordTracker persister");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return persister.submit(this::saveTreeToFile);
+    }
+
+    /**
+     * Writes the whole BST to the binary file and empties the journal file.
+     * @throws IOException if the binary file cannot be written, or the saved files could not be read
+     */
+    public void compact() throws IOException {
+        checkReadable();
+        RepositoryFormat.write(wordTree, fileMetadata, repositoryFile);
+        // the journal is only removed once the binary file holds everything in it
+        Files.deleteIfExists(journalFile);
+        unsavedFiles.clear();
+        upgradeOnSave = false;
+    }
+
+    // helper method to refuse to save over saved files that could not be read, which would lose what is in them
+    private void checkReadable() throws IOException {
+        if (readFailure != null)
+            throw new IOException("the saved files could not be read, so they are left as they are: "
+                    + readFailure.getMessage(), readFailure);
+    }
+
+    /**
+     * Opens the saved binary file for looking up words without loading the whole BST.
+     *
+     * @return an index over the binary file and the journal file
+     * @throws IOException if the binary file does not exist or cannot be read
+     */
+    public static RepositoryIndex openRepositoryIndex() throws IOException {
+        return openRepositoryIndex(Paths.get(""));
+    }
+
+    /**
+     * Opens the binary file saved in a directory for looking up words without loading the whole BST.
+     *
+     * @param directory the directory holding the binary file and the journal file
+     * @return an index over the binary file and the journal file
+     * @throws IOException if the binary file does not exist or cannot be read
+     */
+    public static RepositoryIndex openRepositoryIndex(Path directory) throws IOException {
+        return new RepositoryIndex(directory.resolve(REPOSITORY_FILE), directory.resolve(JOURNAL_FILE));
+    }
+
+    /**
+     * Returns why the saved files could not be read when this WordTracker was made, in which case it started from
+     * the words it could read and refuses to save over the saved files.
+     * @return the failure to read or convert the saved files, or null if they were read
+     */
+    public IOException getReadFailure() {
+        return readFailure;
+    }
+
+    /**
+     * Returns why a damaged record at the end of the journal file was left out and cut off the journal when this
+     * WordTracker was made, as when a crash interrupted appending it. The files in that record are indexed again
+     * the next time they are processed.
+     * @return the reason the last record of the journal was left out, or null if the journal was whole
+     */
+    public String getJournalDamage() {
+        return journalDamage;
+    }
+
     /**
      * Gets the BST containing the WordNode objects.
      * @return a BST containing WordNode objects
@@ -66,32 +357,468 @@ public class WordTracker {
         return wordTree;
     }
 
+    /**
+     * Sets whether input files are memory-mapped. Mapping avoids copying the file onto the heap,
+     * which helps with ASCII or UTF-8 files larger than the heap.
+     * @param memoryMapped true to memory-map input files, false to read them through a buffer
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Sets whether files are bulk loaded. Instead of inserting every word into a tree, the (word, file, line) postings
+     * are sorted, spilling to temporary files when there are too many to hold in memory, and the BST is rebuilt
+     * perfectly balanced from the sorted words and the ones already in it. This is faster for a one-shot index of a
+     * large corpus, but rebuilding costs time in proportion to the whole BST, so it is slower for small updates.
+     * @param bulkLoad true to bulk load files, false to insert their words one at a time
+     */
+    public void setBulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+
+    /**
+     * Sets whether the chunks of a file split for parallel indexing are indexed into one ConcurrentBSTree shared by
+     * the indexing threads, instead of a tree per chunk that is merged into the BST after it. A shared tree holds each
+     * word of the file once, so there is less to merge when the chunks have many words in common. The
+     * ConcurrentBSTree is not balanced, so leave this off for files whose words are mostly in sorted order, such as
+     * word lists. It has no effect when bulk loading.
+     * @param sharedTree true to index the chunks of a file into one shared tree, false for a tree per chunk
+     */
+    public void setSharedTree(boolean sharedTree) {
+        this.sharedTree = sharedTree;
+    }
+
+    /**
+     * Sets the number of threads used to index files. Several files, or chunks of one large file, are indexed at once.
+     * @param parallelism the number of indexing threads, at least 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the number of threads used to read files before they are indexed, hashing them to find the ones that
+     * changed and counting the lines of their chunks. Reading runs alongside indexing, so files on slow storage can
+     * be given more reading threads than there are processors.
+     * @param readParallelism the number of reading threads, at least 1
+     */
+    public void setReadParallelism(int readParallelism) {
+        if (readParallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.readParallelism = readParallelism;
+    }
+
+    /**
+     * Sets the smallest chunk a large file is split into. A file is split into at most one chunk per indexing thread,
+     * and only if each chunk would be at least this large.
+     * @param chunkSize the smallest chunk in bytes, at least 1
+     */
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Processes words from the provided text file and places them in the BST.
+     * The file is streamed through a WordTokenizer, so memory use doesn't grow with the size of the file.
+     * Large files are split into chunks that are indexed in parallel.
      * @param filename
      * @throws IOException
      */
     public void processFile(String filename) throws IOException {
-        List<String> lines = Files.readAllLines(Paths.get(filename));
-        WordNode wordNode;
-        for (int i = 0; i < lines.size(); i++) {
-            String[] words = lines.get(i).split("\\s+");
-            for (String word : words) {
-                word = word.replaceAll("[^a-zA-Z0-9'-]", "");
-                if (word.isEmpty())
+        processFiles(Collections.singletonList(filename));
+    }
+
+    /**
+     * Processes words from all the provided text files and places them in the BST. Directories are replaced by
+     * the regular files they contain. Files whose content has not changed since they were indexed are skipped, and
+     * the words of a changed file replace the ones it had before. Files larger than a chunk are split at line
+     * boundaries.
+     * Reading threads hash the files and split the changed ones into chunks. Each chunk is then one task on the
+     * indexing threads, which reads it and streams its words into a tree of its own, and the calling thread merges
+     * the trees into the BST in file and chunk order, so the result is the same as indexing the files one after
+     * another. Reading and tokenizing a chunk are not separate stages with queues between them: a chunk is handed to
+     * the indexing threads as soon as its file has been split, and at most two chunks per indexing thread are handed
+     * out ahead of the one being merged, so memory use doesn't grow with the number of files.
+     * The chunks of a file may share one tree instead, see setSharedTree.
+     * When bulk loading, each chunk is sorted instead, the same few chunks ahead at a time, and the BST is rebuilt
+     * from the sorted words once every chunk is sorted, see setBulkLoad.
+     * The old words of a file are only replaced once every chunk of it has been indexed, so a file that cannot be
+     * read keeps the words and the metadata it had, and is indexed again the next time it is processed. The files
+     * merged or sorted before it stay indexed.
+     * @param paths the text files or directories to process
+     * @throws IOException if a file cannot be read
+     */
+    public void processFiles(List<String> paths) throws IOException {
+        ExecutorService readers = Executors.newFixedThreadPool(readParallelism);
+        ExecutorService indexers = Executors.newFixedThreadPool(parallelism);
+        // the chunks of the changed files in order, the first of them handed to the indexing threads
+        List<Chunk> chunks = new ArrayList<>();
+        List<Future<PostingSorter.SortedRun>> indexedChunks = new ArrayList<>();
+        try {
+            // the number of chunks handed out ahead of the one being merged or collected
+            int window = 2 * parallelism;
+
+            Map<String, FileMetadata> changedFiles = new LinkedHashMap<>();
+            // only files that had an id before can have line numbers in the BST to remove
+            Set<String> reindexedFiles = new HashSet<>();
+            for (Map.Entry<String, Future<FileMetadata>> entry : hashFiles(listFiles(paths), readers).entrySet()) {
+                String filename = entry.getKey();
+                FileMetadata current = await(entry.getValue());
+                if (!hasChanged(filename, current))
                     continue;
-                WordNode newWordNode = new WordNode(word);
-
-                BSTreeNode<WordNode> node = wordTree.search(newWordNode);
-                if (node != null) {
-                    wordNode = node.getElement();
-                    wordNode.addFileAndLineNumber(filename, i + 1);
-                } else {
-                    newWordNode.addFileAndLineNumber(filename, i + 1);
-                    wordTree.add(newWordNode);
+                changedFiles.put(filename, current);
+                if (FileDictionary.findId(filename) >= 0)
+                    reindexedFiles.add(filename);
+                // ids are given out in file order, so the files of a word are listed the same however the
+                // indexing threads are scheduled
+                FileDictionary.getId(filename);
+                chunks.addAll(splitFile(filename, readers));
+                indexChunks(chunks, indexedChunks, window, indexers);
+            }
+
+            if (bulkLoad) {
+                bulkLoad(chunks, indexedChunks, window, indexers, changedFiles, reindexedFiles);
+                return;
+            }
+            for (int first = 0; first < chunks.size(); ) {
+                String filename = chunks.get(first).filename;
+                int end = first + 1;
+                while (end < chunks.size() && chunks.get(end).filename.equals(filename))
+                    end++;
+                // a file has at most one chunk per indexing thread, so all of them are inside the window, and every
+                // one of them is indexed before the file's old words are replaced
+                indexChunks(chunks, indexedChunks, first + window, indexers);
+                List<PostingSorter.SortedRun> wordNodes = new ArrayList<>();
+                for (int i = first; i < end; i++)
+                    wordNodes.add(await(indexedChunks.get(i)));
+                // a shared tree holds the words of every chunk of its file once they are all done
+                ConcurrentBSTree<WordNode> sharedWords = chunks.get(first).sharedWords;
+                if (sharedWords != null)
+                    wordNodes = Collections.singletonList(
+                            PostingSorter.SortedRun.of(sortLineNumbers(toList(sharedWords))));
+                replaceFiles(Collections.singletonList(filename), reindexedFiles);
+                for (PostingSorter.SortedRun run : wordNodes)
+                    addWords(run, unsavedFiles.get(filename));
+                // the words of merged chunks belong to the BST now
+                for (int i = first; i < end; i++)
+                    indexedChunks.set(i, null);
+                fileMetadata.put(filename, changedFiles.get(filename));
+                first = end;
+            }
+        } finally {
+            readers.shutdownNow();
+            // the chunks that were never started won't be, so waiting for them ends
+            for (Runnable unstarted : indexers.shutdownNow())
+                ((Future<?>) unstarted).cancel(false);
+            if (bulkLoad)
+                discardRuns(indexedChunks);
+        }
+    }
+
+    // helper method to collect the sorted words of the chunks in order, handing out a few chunks ahead of the one being
+    // collected, and to rebuild the BST from them. If a chunk cannot be read, the BST is rebuilt from the files before
+    // its file, so they stay indexed as they do when the words are inserted one at a time
+    private void bulkLoad(List<Chunk> chunks, List<Future<PostingSorter.SortedRun>> indexedChunks, int window,
+                          ExecutorService indexers, Map<String, FileMetadata> changedFiles,
+                          Set<String> reindexedFiles) throws IOException {
+        List<PostingSorter.SortedRun> sortedRuns = new ArrayList<>();
+        try {
+            try {
+                for (int i = 0; i < chunks.size(); i++) {
+                    indexChunks(chunks, indexedChunks, i + window, indexers);
+                    sortedRuns.add(await(indexedChunks.get(i)));
+                    indexedChunks.set(i, null);
+                }
+            } finally {
+                // the chunks collected before a chunk that failed are left out if they belong to its file
+                int sorted = sortedRuns.size();
+                while (sorted > 0 && sorted < chunks.size()
+                        && chunks.get(sorted - 1).filename.equals(chunks.get(sorted).filename))
+                    sorted--;
+                Set<String> sortedFiles = new LinkedHashSet<>();
+                for (int i = 0; i < sorted; i++)
+                    sortedFiles.add(chunks.get(i).filename);
+                replaceFiles(sortedFiles, reindexedFiles);
+                boolean rebuilt = false;
+                try {
+                    if (sorted > 0)
+                        rebuildTree(chunks, sortedRuns.subList(0, sorted));
+                    rebuilt = true;
+                } finally {
+                    for (String filename : sortedFiles) {
+                        if (rebuilt)
+                            fileMetadata.put(filename, changedFiles.get(filename));
+                        else if (!fileMetadata.containsKey(filename))
+                            // a file that was never indexed has nothing to save
+                            unsavedFiles.remove(filename);
+                    }
                 }
             }
+        } finally {
+            for (PostingSorter.SortedRun sortedRun : sortedRuns)
+                sortedRun.close();
         }
+    }
 
+    // helper method to close the sorted runs of the chunks that were indexed but not merged, deleting their temporary
+    // files, once the indexing threads are done with them
+    private static void discardRuns(List<Future<PostingSorter.SortedRun>> indexedChunks) {
+        for (Future<PostingSorter.SortedRun> indexedChunk : indexedChunks) {
+            if (indexedChunk == null)
+                continue;
+            try {
+                indexedChunk.get().close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | CancellationException | IOException e) {
+                // the chunk has no run, or its run can't be deleted
+            }
+        }
+    }
+
+    // helper method to hand chunks to the indexing threads in order, until the given number of them have been handed
+    // over or there are no more
+    private void indexChunks(List<Chunk> chunks, List<Future<PostingSorter.SortedRun>> indexedChunks, int limit,
+                             ExecutorService indexers) {
+        while (indexedChunks.size() < Math.min(chunks.size(), limit)) {
+            Chunk chunk = chunks.get(indexedChunks.size());
+            indexedChunks.add(indexers.submit(() -> indexChunk(chunk)));
+        }
+    }
+
+    // helper method to start hashing the files that may have changed, in parallel. A file whose size and last
+    // modified time are unchanged is skipped
+    private Map<String, Future<FileMetadata>> hashFiles(List<String> filenames, ExecutorService readers)
+            throws IOException {
+        Map<String, Future<FileMetadata>> hashedFiles = new LinkedHashMap<>();
+        for (String filename : filenames) {
+            FileMetadata saved = fileMetadata.get(filename);
+            if (saved != null && saved.hasSameAttributes(
+                    Files.readAttributes(Paths.get(filename), BasicFileAttributes.class)))
+                continue;
+            if (!hashedFiles.containsKey(filename))
+                hashedFiles.put(filename, readers.submit(() -> FileMetadata.read(filename)));
+        }
+        return hashedFiles;
+    }
+
+    // helper method to check if the content of a hashed file changed since it was indexed
+    private boolean hasChanged(String filename, FileMetadata current) {
+        FileMetadata saved = fileMetadata.get(filename);
+        if (saved == null || !saved.hasSameContent(current))
+            return true;
+        // only the time changed, so remember the new one to avoid hashing the file again
+        fileMetadata.put(filename, current);
+        if (!unsavedFiles.containsKey(filename))
+            unsavedFiles.put(filename, null);
+        return false;
+    }
+
+    // helper method to split a file into chunks that start on a line, counting the lines of each chunk in parallel
+    private List<Chunk> splitFile(String filename, ExecutorService readers) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.min(parallelism, (size + chunkSize - 1) / chunkSize);
+            if (chunkCount <= 1)
+                return Collections.singletonList(new Chunk(filename, 0, size, 1, null));
+
+            long[] bounds = new long[chunkCount + 1];
+            for (int i = 1; i < chunkCount; i++)
+                bounds[i] = Math.max(bounds[i - 1], WordTokenizer.nextLineStart(channel, size / chunkCount * i));
+            bounds[chunkCount] = size;
+
+            List<Future<Integer>> lineCounts = new ArrayList<>();
+            for (int i = 0; i < chunkCount - 1; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                lineCounts.add(readers.submit(() -> WordTokenizer.countLines(channel, start, end)));
+            }
+            List<Chunk> chunks = new ArrayList<>();
+            ConcurrentBSTree<WordNode> sharedWords = sharedTree && !bulkLoad ? new ConcurrentBSTree<>() : null;
+            int firstLineNumber = 1;
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(new Chunk(filename, bounds[i], bounds[i + 1], firstLineNumber, sharedWords));
+                if (i < chunkCount - 1)
+                    firstLineNumber += await(lineCounts.get(i));
+            }
+            return chunks;
+        }
+    }
+
+    // helper method to stream the words of a chunk into a tree of their own, or into a PostingSorter when bulk
+    // loading, returning the WordNodes in alphabetical order. The words of a chunk with a shared tree are added to
+    // that tree instead, and none are returned
+    private PostingSorter.SortedRun indexChunk(Chunk chunk) throws IOException {
+        int fileId = FileDictionary.getId(chunk.filename);
+        try (WordTokenizer tokenizer = new WordTokenizer(chunk.filename, chunk.start, chunk.end,
+                chunk.firstLineNumber, memoryMapped)) {
+            String word;
+            if (bulkLoad) {
+                try (PostingSorter sorter = new PostingSorter(Math.max(1, BULK_LOAD_POSTINGS / parallelism))) {
+                    while ((word = tokenizer.nextWord()) != null)
+                        sorter.add(word, fileId, tokenizer.getLineNumber());
+                    return sorter.finish();
+                }
+            }
+            if (chunk.sharedWords != null) {
+                while ((word = tokenizer.nextWord()) != null) {
+                    WordNode wordNode = chunk.sharedWords.getOrAdd(new WordNode(word));
+                    wordNode.addFileAndLineNumberConcurrently(fileId, tokenizer.getLineNumber());
+                }
+                return PostingSorter.SortedRun.of(Collections.emptyList());
+            }
+            BSTree<WordNode> tree = new AVLTree<>();
+            while ((word = tokenizer.nextWord()) != null) {
+                WordNode wordNode = tree.getOrAdd(new WordNode(word));
+                wordNode.addFileAndLineNumber(fileId, tokenizer.getLineNumber());
+            }
+            return PostingSorter.SortedRun.of(toList(tree));
+        }
+    }
+
+    // helper method to wait for a task, rethrowing its IOException
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Indexing was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // helper method to merge the sorted words of every chunk with the words of the BST in one pass, remembering them
+    // for the next save, and to rebuild the BST from the merged words in linear time. The sorted runs are read one
+    // WordNode at a time, so only the BST being built holds every word
+    private void rebuildTree(List<Chunk> chunks, List<PostingSorter.SortedRun> sortedRuns) throws IOException {
+        List<PostingSorter.SortedRun> sources = new ArrayList<>();
+        sources.add(PostingSorter.SortedRun.of(toList(wordTree)));
+        sources.addAll(sortedRuns);
+        List<WordNode> wordNodes;
+        try {
+            wordNodes = PostingSorter.merge(sources, (resident, source) -> {
+                if (source > 0)
+                    unsavedFiles.get(chunks.get(source - 1).filename).add(resident);
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        wordTree = balanced ? AVLTree.buildFromSorted(wordNodes) : BSTree.buildFromSorted(wordNodes);
+    }
+
+    // helper method to list the elements of a tree in order
+    private static List<WordNode> toList(BSTreeADT<WordNode> tree) {
+        List<WordNode> wordNodes = new ArrayList<>(tree.size());
+        Iterator<WordNode> iterator = tree.inorderIterator();
+        while (iterator.hasNext())
+            wordNodes.add(iterator.next());
+        return wordNodes;
+    }
+
+    // helper method to sort the line numbers of WordNodes that each occur in one file, whose lines were added by
+    // several threads at once
+    private static List<WordNode> sortLineNumbers(List<WordNode> wordNodes) {
+        for (WordNode wordNode : wordNodes)
+            wordNode.getLineNumbers(0).sort();
+        return wordNodes;
+    }
+
+    // helper method to add WordNodes to the BST, merging them into the ones already there
+    private void addWords(PostingSorter.SortedRun wordNodes, Set<WordNode> unsavedWords) {
+        while (wordNodes.hasNext()) {
+            WordNode wordNode = wordNodes.next();
+            WordNode resident = wordTree.getOrAdd(wordNode);
+            if (resident != wordNode)
+                resident.merge(wordNode);
+            if (unsavedWords != null)
+                unsavedWords.add(resident);
+        }
+    }
+
+    // helper method to drop the old words of files about to be merged into the BST, and to remember the files for the
+    // next save
+    private void replaceFiles(Collection<String> filenames, Set<String> reindexedFiles) {
+        Set<String> replacedFiles = new HashSet<>();
+        for (String filename : filenames) {
+            if (reindexedFiles.contains(filename))
+                replacedFiles.add(filename);
+            unsavedFiles.put(filename, new HashSet<>());
+        }
+        removeFiles(replacedFiles);
+    }
+
+    // helper method to drop the line numbers of the given files from every word, removing words left in no file
+    private void removeFiles(Set<String> filenames) {
+        if (filenames.isEmpty() || wordTree.isEmpty())
+            return;
+        BitSet fileIds = new BitSet();
+        for (String filename : filenames) {
+            int fileId = FileDictionary.findId(filename);
+            if (fileId >= 0)
+                fileIds.set(fileId);
+        }
+        if (fileIds.isEmpty())
+            return;
+        List<WordNode> emptyWords = new ArrayList<>();
+        Iterator<WordNode> iterator = wordTree.inorderIterator();
+        while (iterator.hasNext()) {
+            WordNode wordNode = iterator.next();
+            wordNode.removeFiles(fileIds);
+            if (wordNode.getFileCount() == 0)
+                emptyWords.add(wordNode);
+        }
+        for (WordNode wordNode : emptyWords)
+            wordTree.remove(wordNode);
+    }
+
+    // helper method to replace directories by the regular files inside them
+    private static List<String> listFiles(List<String> paths) throws IOException {
+        List<String> filenames = new ArrayList<>();
+        for (String path : paths) {
+            if (!Files.isDirectory(Paths.get(path))) {
+                filenames.add(path);
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(Paths.get(path))) {
+                filenames.addAll(files.filter(Files::isRegularFile)
+                        .map(Path::toString)
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return filenames;
+    }
+
+    /**
+     * A range of a file that starts at the beginning of a line
+     */
+    private static class Chunk {
+        private final String filename;
+        private final long start;
+        private final long end;
+        private final int firstLineNumber;
+
+        /**
+         * The tree the chunks of the file are indexed into together, or null if each chunk has a tree of its own
+         */
+        private final ConcurrentBSTree<WordNode> sharedWords;
+
+        private Chunk(String filename, long start, long end, int firstLineNumber,
+                      ConcurrentBSTree<WordNode> sharedWords) {
+            this.filename = filename;
+            this.start = start;
+            this.end = end;
+            this.firstLineNumber = firstLineNumber;
+            this.sharedWords = sharedWords;
+        }
     }
 }
@@ -0,0 +1,216 @@
+package test.datastructures;
+
+import main.datastructures.AVLTree;
+import main.datastructures.BSTree;
+import main.datastructures.BSTreeNode;
+import main.datastructures.interfaces.Iterator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * This class contains tests for the self-balancing AVLTree.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class AVLTreeTest {
+
+    /**
+     * The AVLTree that will be used in the tests.
+     */
+    private AVLTree<Integer> avltree;
+
+    /**
+     * This method is executed before each test. It initializes the AVLTree.
+     */
+    @BeforeEach
+    public void setUp() {
+        avltree = new AVLTree<>();
+    }
+
+    /**
+     * Tests the getHeight method on small trees.
+     */
+    @Test
+    public void testHeight() {
+        assertEquals(-1, avltree.getHeight());
+        avltree.add(10);
+        assertEquals(0, avltree.getHeight());
+        avltree.add(20);
+        assertEquals(1, avltree.getHeight());
+        avltree.add(30);
+        assertEquals(1, avltree.getHeight());
+        assertEquals(20, avltree.getRoot().getElement());
+    }
+
+    /**
+     * Tests the add method.
+     */
+    @Test
+    public void testAdd() {
+        assertTrue(avltree.add(10));
+        assertFalse(avltree.add(10));
+        assertEquals(1, avltree.size());
+    }
+
+    /**
+     * Tests that the height stays logarithmic after a million sorted inserts.
+     */
+    @Test
+    public void testHeightAfterSortedInserts() {
+        int count = 1_000_000;
+        for (int i = 0; i < count; i++) {
+            avltree.add(i);
+        }
+        assertEquals(count, avltree.size());
+        // an AVL tree with n nodes is never taller than 1.44 * log2(n + 2)
+        double limit = 1.44 * Math.log(count + 2) / Math.log(2);
+        assertTrue(avltree.getHeight() <= limit, "height was " + avltree.getHeight());
+        assertNotNull(avltree.search(count - 1));
+        assertNull(avltree.search(count));
+    }
+
+    /**
+     * Tests that the tree stays balanced while half of its elements are removed.
+     */
+    @Test
+    public void testRemoveKeepsBalance() {
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            avltree.add(i);
+        }
+        for (int i = 0; i < count; i += 2) {
+            assertTrue(avltree.remove(i));
+        }
+        assertFalse(avltree.remove(0));
+        assertEquals(count / 2, avltree.size());
+        double limit = 1.44 * Math.log(count / 2 + 2) / Math.log(2);
+        assertTrue(avltree.getHeight() <= limit, "height was " + avltree.getHeight());
+        assertBalanced(avltree.getRoot());
+        Iterator<Integer> iterator = avltree.inorderIterator();
+        for (int i = 1; i < count; i += 2) {
+            assertEquals(i, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests that a tree read back from its serialized form has every height and size again, and that the
+     * serialized form of the nodes is still the one of the original BSTree.
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            avltree.add(i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(avltree);
+        }
+        AVLTree<Integer> copy;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            AVLTree<Integer> read = (AVLTree<Integer>) input.readObject();
+            copy = read;
+        }
+        assertEquals(1000, copy.size());
+        assertEquals(avltree.getHeight(), copy.getHeight());
+        assertBalanced(copy.getRoot());
+        assertEquals(500, copy.select(500));
+        assertEquals(250, copy.rank(250));
+        assertTrue(copy.add(1000));
+        assertBalanced(copy.getRoot());
+
+        // the serial versions of the classes in WordTracker.jar
+        assertEquals(7034921382872893380L, ObjectStreamClass.lookup(BSTreeNode.class).getSerialVersionUID());
+        assertEquals(-2547629611234994970L, ObjectStreamClass.lookup(BSTree.class).getSerialVersionUID());
+    }
+
+    // checks every node's height, balance and parent pointers, returns the height of the subtree
+    private static int assertBalanced(BSTreeNode<Integer> node) {
+        if (node == null)
+            return -1;
+        if (node.getLeft() != null)
+            assertSame(node, node.getLeft().getParent());
+        if (node.getRight() != null)
+            assertSame(node, node.getRight().getParent());
+        int left = assertBalanced(node.getLeft());
+        int right = assertBalanced(node.getRight());
+        assertTrue(Math.abs(left - right) <= 1);
+        assertEquals(Math.max(left, right) + 1, node.getHeight());
+        int leftSize = node.getLeft() == null ? 0 : node.getLeft().getSize();
+        int rightSize = node.getRight() == null ? 0 : node.getRight().getSize();
+        assertEquals(leftSize + rightSize + 1, node.getSize());
+        return node.getHeight();
+    }
+
+    /**
+     * Tests floor, ceiling, ranges, rank and select against a TreeSet while elements are added and removed,
+     * so the subtree sizes have to survive every kind of rotation.
+     */
+    @Test
+    public void testOrderStatisticsMatchTreeSet() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(19);
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), avltree.remove(value));
+            } else {
+                assertEquals(expected.add(value), avltree.add(value));
+            }
+        }
+        assertBalanced(avltree.getRoot());
+        List<Integer> sorted = new ArrayList<>(expected);
+        for (int value = -1; value <= 5_000; value += 7) {
+            assertEquals(expected.floor(value), avltree.floor(value));
+            assertEquals(expected.ceiling(value), avltree.ceiling(value));
+            assertEquals(expected.headSet(value).size(), avltree.rank(value));
+            Iterator<Integer> range = avltree.rangeIterator(value, value + 100);
+            for (int element : expected.subSet(value, value + 100)) {
+                assertEquals(element, range.next());
+            }
+            assertFalse(range.hasNext());
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), avltree.select(i));
+        }
+    }
+
+    /**
+     * Tests that rotations keep the in-order sequence and the parent pointers intact.
+     */
+    @Test
+    public void testRotationsKeepOrderAndParents() {
+        int[] values = {50, 40, 30, 10, 20, 45, 60, 55, 57, 70, 65, 5};
+        for (int value : values) {
+            avltree.add(value);
+        }
+        Iterator<Integer> iterator = avltree.inorderIterator();
+        int previous = Integer.MIN_VALUE;
+        while (iterator.hasNext()) {
+            int current = iterator.next();
+            assertTrue(current > previous);
+            previous = current;
+        }
+        assertNull(avltree.getRoot().getParent());
+        for (int value : values) {
+            BSTreeNode<Integer> node = avltree.search(value);
+            if (node.getLeft() != null)
+                assertSame(node, node.getLeft().getParent());
+            if (node.getRight() != null)
+                assertSame(node, node.getRight().getParent());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package test.datastructures;
+
+import main.datastructures.AVLTree;
+import main.datastructures.ArrayBSTree;
+import main.datastructures.BSTreeNode;
+import main.datastructures.interfaces.Iterator;
+import main.exceptions.TreeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.util.Random;
+
+/**
+ * This class contains tests for the array-backed ArrayBSTree.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class ArrayBSTreeTest {
+
+    /**
+     * The ArrayBSTree that will be used in the tests.
+     */
+    private ArrayBSTree<Integer> tree;
+
+    /**
+     * This method is executed before each test. It initializes the ArrayBSTree.
+     */
+    @BeforeEach
+    public void setUp() {
+        tree = new ArrayBSTree<>(0);
+    }
+
+    /**
+     * Tests the basic operations.
+     */
+    @Test
+    public void testBasicOperations() {
+        assertThrows(TreeException.class, () -> tree.getRoot());
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.add(20));
+        assertTrue(tree.add(10));
+        assertFalse(tree.add(20));
+        assertEquals(30, tree.getOrAdd(30));
+        assertEquals(3, tree.size());
+        assertEquals(1, tree.getHeight());
+        assertEquals(20, tree.getRoot().getElement());
+        assertTrue(tree.contains(10));
+        assertNull(tree.search(15));
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertFalse(tree.remove(15));
+        assertEquals(10, tree.floor(15));
+        assertEquals(20, tree.ceiling(15));
+        assertNull(tree.ceiling(31));
+        Iterator<Integer> range = tree.rangeIterator(10, 30);
+        assertEquals(10, range.next());
+        assertEquals(20, range.next());
+        assertFalse(range.hasNext());
+        assertEquals(1, tree.rank(15));
+        assertEquals(30, tree.select(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(3));
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+    }
+
+    /**
+     * Tests that the tree takes the same shape as an AVLTree given the same elements, by comparing all three walks.
+     */
+    @Test
+    public void testSameShapeAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(100_000);
+            assertEquals(avltree.add(value), tree.add(value));
+        }
+        assertEquals(avltree.size(), tree.size());
+        assertEquals(avltree.getHeight(), tree.getHeight());
+        assertSameSequence(avltree.inorderIterator(), tree.inorderIterator());
+        assertSameSequence(avltree.preorderIterator(), tree.preorderIterator());
+        assertSameSequence(avltree.postorderIterator(), tree.postorderIterator());
+    }
+
+    /**
+     * Tests that removing keeps the tree the same shape as an AVLTree that the same elements are removed from, that
+     * the indexes of removed nodes are reused, and that removing thaws a frozen tree.
+     */
+    @Test
+    public void testRemoveSameShapeAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(8);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(30_000);
+                assertEquals(avltree.add(value), tree.add(value));
+            }
+            tree.freeze();
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(30_000);
+                assertEquals(avltree.remove(value), tree.remove(value));
+            }
+            assertFalse(tree.isFrozen());
+            assertEquals(avltree.size(), tree.size());
+            assertEquals(avltree.getHeight(), tree.getHeight());
+            assertSameSequence(avltree.inorderIterator(), tree.inorderIterator());
+            assertSameSequence(avltree.preorderIterator(), tree.preorderIterator());
+            assertSameSequence(avltree.postorderIterator(), tree.postorderIterator());
+        }
+        tree.freeze();
+        for (int i = 0; i < 30_000; i++)
+            assertEquals(avltree.contains(i), tree.contains(i));
+        Iterator<Integer> iterator = avltree.inorderIterator();
+        while (iterator.hasNext())
+            assertTrue(tree.remove(iterator.next()));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.inorderIterator().hasNext());
+    }
+
+    /**
+     * Tests that the nodes returned by getRoot and search are linked to the nodes around them, follow the tree as it
+     * changes shape, and can hold an equal element but cannot be relinked.
+     */
+    @Test
+    public void testOrderQueriesSameAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(9);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                int value = random.nextInt(10_000);
+                assertEquals(avltree.add(value), tree.add(value));
+            }
+            for (int i = 0; i < 2_000; i++) {
+                int value = random.nextInt(10_000);
+                assertEquals(avltree.remove(value), tree.remove(value));
+            }
+            for (int i = 0; i < 1_000; i++) {
+                int value = random.nextInt(10_002) - 1;
+                assertEquals(avltree.floor(value), tree.floor(value));
+                assertEquals(avltree.ceiling(value), tree.ceiling(value));
+                assertEquals(avltree.rank(value), tree.rank(value));
+            }
+            for (int i = 0; i < avltree.size(); i += 37)
+                assertEquals(avltree.select(i), tree.select(i));
+            for (int i = 0; i < 50; i++) {
+                int from = random.nextInt(10_000);
+                int to = from + random.nextInt(500);
+                assertSameSequence(avltree.rangeIterator(from, to), tree.rangeIterator(from, to));
+            }
+            assertSameSequence(avltree.rangeIterator(null, 5_000), tree.rangeIterator(null, 5_000));
+            assertSameSequence(avltree.rangeIterator(5_000, null), tree.rangeIterator(5_000, null));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(tree.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(-1));
+    }
+
+    @Test
+    public void testNodeViews() {
+        for (int value : new int[]{20, 10, 30})
+            tree.add(value);
+        BSTreeNode<Integer> root = tree.getRoot();
+        assertEquals(10, root.getLeft().getElement());
+        assertEquals(30, root.getRight().getElement());
+        assertNull(root.getParent());
+        assertEquals(1, root.getHeight());
+        assertEquals(3, root.getSize());
+        assertEquals(1, root.getLeft().getSize());
+        BSTreeNode<Integer> ten = tree.search(10);
+        assertEquals(20, ten.getParent().getElement());
+        assertNull(ten.getLeft());
+
+        tree.add(5);
+        tree.add(1);
+        // adding 1 rotates the node of 10 right, under 20 in place of 5
+        assertEquals(5, ten.getParent().getElement());
+        assertEquals(5, root.getLeft().getElement());
+        assertEquals(5, root.getSize());
+        assertEquals(3, root.getLeft().getSize());
+
+        Integer twenty = 20;
+        root.setElement(twenty);
+        assertSame(twenty, tree.getOrAdd(20));
+        assertThrows(IllegalArgumentException.class, () -> root.setElement(21));
+        assertThrows(UnsupportedOperationException.class, () -> root.setLeft(null));
+        assertThrows(UnsupportedOperationException.class, () -> root.setHeight(0));
+        assertThrows(UnsupportedOperationException.class, () -> root.setSize(1));
+        assertSame(twenty, tree.compute(20, element -> element));
+    }
+
+    /**
+     * Tests that a frozen tree finds every element and that adding thaws it.
+     */
+    @Test
+    public void testFreeze() {
+        tree.freeze();
+        assertTrue(tree.isFrozen());
+        assertFalse(tree.contains(1));
+        for (int i = 0; i < 1000; i += 2) {
+            tree.add(i);
+        }
+        tree.freeze();
+        assertTrue(tree.isFrozen());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0, tree.contains(i));
+        }
+        assertEquals(998, tree.search(998).getElement());
+        assertNull(tree.search(999));
+        assertEquals(500, tree.size());
+        for (int i = -1; i < 1000; i++) {
+            assertEquals(i < 0 ? null : Integer.valueOf(i - Math.floorMod(i, 2)), tree.floor(i));
+            assertEquals(i > 998 ? null : Integer.valueOf(i + Math.floorMod(i, 2)), tree.ceiling(i));
+        }
+        assertTrue(tree.isFrozen());
+
+        assertEquals(4, tree.getOrAdd(4));
+        assertTrue(tree.isFrozen());
+        assertTrue(tree.add(1));
+        assertFalse(tree.isFrozen());
+        assertTrue(tree.contains(1));
+
+        tree.freeze();
+        assertTrue(tree.remove(500));
+        assertFalse(tree.isFrozen());
+        assertFalse(tree.contains(500));
+        tree.freeze();
+        assertEquals(6, tree.compute(6, element -> element));
+        assertTrue(tree.isFrozen());
+        // a new Integer outside the cached ones replaces the stored one
+        assertEquals(998, tree.compute(998, element -> Integer.valueOf(998)));
+        assertFalse(tree.isFrozen());
+    }
+
+    // checks that two iterators return equal elements in the same order
+    private static <E> void assertSameSequence(Iterator<E> expected, Iterator<E> actual) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            assertEquals(expected.next(), actual.next());
+        }
+        assertFalse(actual.hasNext());
+    }
+}
@@ -10,6 +10,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import test.TestResultsLogger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * This class contains tests for the Binary Search Tree (BST) data structure.
  */
@@ -86,6 +90,21 @@ public class BSTreeTest {
         assertEquals(1, bstree.getHeight());
     }
 
+    /**
+     * Tests that add, search and getHeight work on a degenerate tree built from sorted input.
+     */
+    @Test
+    public void testDegenerateTree() {
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            bstree.add(i);
+        }
+        assertEquals(count - 1, bstree.getHeight());
+        assertNotNull(bstree.search(count - 1));
+        assertEquals(count - 2, bstree.search(count - 1).getParent().getElement());
+        assertFalse(bstree.add(count - 1));
+    }
+
     /**
      * Tests the contains method.
      */
@@ -141,6 +160,153 @@ public class BSTreeTest {
         assertFalse(bstree.add(10));
     }
 
+    /**
+     * Tests the remove method on a leaf, a node with one child and a node with two children.
+     */
+    @Test
+    public void testRemove() {
+        int[] values = {50, 30, 70, 20, 40, 60, 80, 35};
+        for (int value : values) {
+            bstree.add(value);
+        }
+        assertFalse(bstree.remove(99));
+        assertTrue(bstree.remove(20));
+        assertTrue(bstree.remove(40));
+        assertTrue(bstree.remove(50));
+        assertEquals(5, bstree.size());
+        assertFalse(bstree.contains(50));
+        int[] expected = {30, 35, 60, 70, 80};
+        Iterator<Integer> iterator = bstree.inorderIterator();
+        for (int value : expected) {
+            assertEquals(value, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+        for (int value : expected) {
+            assertTrue(bstree.remove(value));
+        }
+        assertTrue(bstree.isEmpty());
+    }
+
+    /**
+     * Tests the floor, ceiling and rangeIterator methods.
+     */
+    @Test
+    public void testFloorCeilingAndRange() {
+        assertNull(bstree.floor(5));
+        assertNull(bstree.ceiling(5));
+        assertFalse(bstree.rangeIterator(null, null).hasNext());
+        int[] values = {50, 30, 70, 20, 40, 60, 80, 35};
+        for (int value : values) {
+            bstree.add(value);
+        }
+        assertEquals(40, bstree.floor(45));
+        assertEquals(40, bstree.floor(40));
+        assertNull(bstree.floor(19));
+        assertEquals(50, bstree.ceiling(45));
+        assertEquals(80, bstree.ceiling(80));
+        assertNull(bstree.ceiling(81));
+
+        assertRange(bstree.rangeIterator(35, 70), 35, 40, 50, 60);
+        assertRange(bstree.rangeIterator(36, 71), 40, 50, 60, 70);
+        assertRange(bstree.rangeIterator(null, 35), 20, 30);
+        assertRange(bstree.rangeIterator(61, null), 70, 80);
+        assertRange(bstree.rangeIterator(41, 49));
+        assertRange(bstree.rangeIterator(null, null), 20, 30, 35, 40, 50, 60, 70, 80);
+    }
+
+    /**
+     * Tests the rank and select methods, including after removing nodes with two children.
+     */
+    @Test
+    public void testRankAndSelect() {
+        int[] values = {50, 30, 70, 20, 40, 60, 80, 35};
+        for (int value : values) {
+            bstree.add(value);
+        }
+        assertTrue(bstree.remove(30));
+        assertTrue(bstree.remove(50));
+        int[] expected = {20, 35, 40, 60, 70, 80};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], bstree.select(i));
+            assertEquals(i, bstree.rank(expected[i]));
+            assertEquals(i + 1, bstree.rank(expected[i] + 1));
+        }
+        assertEquals(0, bstree.rank(0));
+        assertEquals(expected.length, bstree.getRoot().getSize());
+        assertThrows(IndexOutOfBoundsException.class, () -> bstree.select(expected.length));
+        assertThrows(IndexOutOfBoundsException.class, () -> bstree.select(-1));
+
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sorted.add(i);
+        }
+        BSTree<Integer> built = BSTree.buildFromSorted(sorted);
+        assertEquals(500, built.select(500));
+        assertEquals(999, built.rank(999));
+        assertEquals(1000, built.rank(1000));
+    }
+
+    // checks that a range iterator returns exactly the given elements
+    private static void assertRange(Iterator<Integer> iterator, int... expected) {
+        for (int value : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(value, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests the getOrAdd method.
+     */
+    @Test
+    public void testGetOrAdd() {
+        BSTree<String> words = new BSTree<>();
+        String first = new String("word");
+        String second = new String("word");
+        assertSame(first, words.getOrAdd(first));
+        assertSame(first, words.getOrAdd(second));
+        assertEquals(1, words.size());
+        assertThrows(NullPointerException.class, () -> words.getOrAdd(null));
+    }
+
+    /**
+     * Tests that compute stores the element the update returns in place of the stored one.
+     */
+    @Test
+    public void testCompute() {
+        BSTree<String> words = new BSTree<>();
+        String first = new String("word");
+        String second = new String("word");
+        words.add("other");
+        assertSame(first, words.compute(first, word -> word));
+        assertSame(second, words.compute("word", word -> second));
+        assertSame(second, words.search("word").getElement());
+        assertThrows(IllegalArgumentException.class, () -> words.compute("word", word -> "words"));
+        assertEquals(2, words.size());
+    }
+
+    /**
+     * Tests the buildFromSorted factory.
+     */
+    @Test
+    public void testBuildFromSorted() {
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sorted.add(i * 2);
+        }
+        BSTree<Integer> built = BSTree.buildFromSorted(sorted);
+        assertEquals(1000, built.size());
+        assertEquals(9, built.getHeight());
+        assertEquals(built.getHeight(), built.getRoot().getHeight());
+        Iterator<Integer> iterator = built.inorderIterator();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 2, iterator.next());
+        }
+        assertTrue(built.add(1));
+        assertEquals(0, BSTree.buildFromSorted(new ArrayList<Integer>()).size());
+        assertThrows(IllegalArgumentException.class, () -> BSTree.buildFromSorted(Arrays.asList(2, 1)));
+    }
+
     /**
      * Tests the clear method.
      */
@@ -199,4 +365,21 @@ public class BSTreeTest {
         assertEquals(20, iterator.next());
         assertFalse(iterator.hasNext());
     }
+
+    /**
+     * Tests the postorderIterator on a tree where a node's left child has children of its own.
+     */
+    @Test
+    public void testPostorderIteratorDeeperTree() {
+        int[] values = {50, 30, 70, 20, 40, 60, 80};
+        for (int value : values) {
+            bstree.add(value);
+        }
+        int[] expected = {20, 40, 30, 60, 80, 70, 50};
+        Iterator<Integer> iterator = bstree.postorderIterator();
+        for (int value : expected) {
+            assertEquals(value, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
 }
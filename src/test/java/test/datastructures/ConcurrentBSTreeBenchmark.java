@@ -0,0 +1,95 @@
+package test.datastructures;
+
+import main.datastructures.ConcurrentBSTree;
+import main.utils.WordNode;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A contention benchmark for the ConcurrentBSTree. Every thread indexes the same number of words into one shared
+ * tree, recording a line number for each word through the concurrent WordNode update. The words are drawn at random
+ * from a vocabulary, then read in sorted order from a smaller one, which shows what the unbalanced tree costs when its
+ * input is sorted.
+ * It is not part of the unit tests; run it with "mvn test -Pbenchmark".
+ */
+public class ConcurrentBSTreeBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+    private static final int VOCABULARY = 100_000;
+    private static final int WORDS_PER_THREAD = 100_000;
+
+    /**
+     * The sorted vocabulary is smaller, since every word added to a tree built from sorted words takes linear time
+     */
+    private static final int SORTED_VOCABULARY = 5_000;
+
+    /**
+     * Runs every case twice, to warm up and then to measure, and prints the results.
+     */
+    @Test
+    public void benchmark() throws InterruptedException {
+        String[] vocabulary = new String[VOCABULARY];
+        Random random = new Random(42);
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        }
+        String[] sortedVocabulary = Arrays.copyOf(vocabulary, SORTED_VOCABULARY);
+        Arrays.sort(sortedVocabulary);
+        for (int round = 0; round < 2; round++) {
+            for (int threadCount : THREAD_COUNTS) {
+                print(round, "random", threadCount, WORDS_PER_THREAD, run(vocabulary, false, threadCount, WORDS_PER_THREAD));
+            }
+            for (int threadCount : THREAD_COUNTS) {
+                print(round, "sorted", threadCount, SORTED_VOCABULARY,
+                        run(sortedVocabulary, true, threadCount, SORTED_VOCABULARY));
+            }
+        }
+    }
+
+    private static void print(int round, String input, int threadCount, int wordsPerThread, long nanos) {
+        long words = (long) threadCount * wordsPerThread;
+        System.out.printf("%s %s %2d threads: %6d ms, %6.2f M words/s%n", round == 0 ? "warm-up " : "measured",
+                input, threadCount, nanos / 1_000_000, words * 1000.0 / nanos);
+    }
+
+    // helper method to time threads adding words into one tree, either at random or in the order of the vocabulary
+    private static long run(String[] vocabulary, boolean sorted, int threadCount, int wordsPerThread)
+            throws InterruptedException {
+        ConcurrentBSTree<WordNode> tree = new ConcurrentBSTree<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            String filename = "file" + t + ".txt";
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < wordsPerThread; i++) {
+                    String word = vocabulary[sorted ? i % vocabulary.length : random.nextInt(vocabulary.length)];
+                    WordNode wordNode = tree.getOrAdd(new WordNode(word));
+                    wordNode.addFileAndLineNumberConcurrently(filename, i + 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long nanos = System.nanoTime() - startTime;
+        assertTrue(tree.size() <= vocabulary.length);
+        return nanos;
+    }
+}
@@ -0,0 +1,343 @@
+package test.datastructures;
+
+import main.datastructures.ConcurrentBSTree;
+import main.datastructures.interfaces.Iterator;
+import main.exceptions.TreeException;
+import main.utils.WordNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class contains tests for the lock-free ConcurrentBSTree.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class ConcurrentBSTreeTest {
+
+    /**
+     * The ConcurrentBSTree that will be used in the tests.
+     */
+    private ConcurrentBSTree<Integer> tree;
+
+    /**
+     * This method is executed before each test. It initializes the ConcurrentBSTree.
+     */
+    @BeforeEach
+    public void setUp() {
+        tree = new ConcurrentBSTree<>();
+    }
+
+    /**
+     * Tests the single-threaded operations.
+     */
+    @Test
+    public void testSingleThreaded() {
+        assertThrows(TreeException.class, () -> tree.getRoot());
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.add(20));
+        assertTrue(tree.add(10));
+        assertFalse(tree.add(20));
+        assertEquals(30, tree.getOrAdd(30));
+        assertEquals(3, tree.size());
+        assertEquals(1, tree.getHeight());
+        assertTrue(tree.contains(10));
+        assertEquals(20, tree.search(10).getParent().getElement());
+        assertEquals(20, tree.floor(25));
+        assertEquals(30, tree.ceiling(25));
+        Iterator<Integer> range = tree.rangeIterator(15, null);
+        assertEquals(20, range.next());
+        assertEquals(30, range.next());
+        assertFalse(range.hasNext());
+        assertEquals(2, tree.rank(25));
+        assertEquals(10, tree.select(0));
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+    }
+
+    /**
+     * Tests that removed elements are skipped by searches, iterators, floor and ceiling, and that adding an equal
+     * element puts it back.
+     */
+    @Test
+    public void testRemove() {
+        for (int value : new int[]{50, 30, 70, 20, 40, 60, 80, 35, 45})
+            tree.add(value);
+        assertTrue(tree.remove(50));
+        assertFalse(tree.remove(50));
+        assertFalse(tree.remove(55));
+        assertTrue(tree.remove(40));
+        assertTrue(tree.remove(45));
+        assertTrue(tree.remove(35));
+        assertEquals(5, tree.size());
+        assertFalse(tree.contains(50));
+        assertNull(tree.search(40));
+        assertEquals(50, tree.getRoot().getElement());
+        assertEquals("[20, 30, 60, 70, 80]", elements(tree.inorderIterator()));
+        assertEquals("[30, 20, 70, 60, 80]", elements(tree.preorderIterator()));
+        assertEquals("[20, 30, 60, 80, 70]", elements(tree.postorderIterator()));
+        assertEquals("[30, 60]", elements(tree.rangeIterator(25, 70)));
+        assertEquals(30, tree.floor(50));
+        assertEquals(30, tree.floor(45));
+        assertEquals(60, tree.ceiling(31));
+        assertNull(tree.floor(10));
+        assertEquals(2, tree.rank(50));
+        assertEquals(60, tree.select(2));
+
+        Integer fifty = 50;
+        assertTrue(tree.add(fifty));
+        assertSame(fifty, tree.getOrAdd(50));
+        assertEquals(50, tree.floor(55));
+        assertEquals(6, tree.size());
+        assertEquals(3, tree.getHeight());
+        for (int value : new int[]{20, 30, 50, 60, 70, 80})
+            assertTrue(tree.remove(value));
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.inorderIterator().hasNext());
+        assertNull(tree.ceiling(0));
+    }
+
+    /**
+     * Tests that threads adding and removing the same elements at the same time leave every element either in the
+     * tree or not, with a size that matches.
+     */
+    @Test
+    public void testConcurrentRemoves() throws InterruptedException {
+        int threadCount = 8;
+        int count = 5_000;
+        for (int i = 0; i < count; i++)
+            tree.add((int) ((long) i * 7919 % count));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // the even threads remove every element and add back the even ones, the odd threads remove the odd
+                // elements again and again
+                for (int round = 0; round < 3; round++) {
+                    for (int i = 0; i < count; i++) {
+                        int value = (i + offset * count / threadCount) % count;
+                        if (offset % 2 == 0) {
+                            tree.remove(value);
+                            if (value % 2 == 0)
+                                tree.getOrAdd(value);
+                        } else if (value % 2 == 1) {
+                            tree.remove(value);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // every even element was added back after it was last removed, and every odd one was removed
+        assertEquals(count / 2, tree.size());
+        Iterator<Integer> iterator = tree.inorderIterator();
+        for (int i = 0; i < count; i += 2) {
+            assertEquals(i, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests that threads adding overlapping elements at the same time add every element exactly once.
+     */
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        int threadCount = 8;
+        int count = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // every thread adds every element, starting at a different place
+                for (int i = 0; i < count; i++) {
+                    int value = (int) (((long) (i + offset * count / threadCount) * 7919) % count);
+                    tree.getOrAdd(value);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(count, tree.size());
+        Iterator<Integer> iterator = tree.inorderIterator();
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests that threads indexing the same words from different files into one tree lose no word and no line number.
+     */
+    @Test
+    public void testConcurrentPostings() throws InterruptedException {
+        int threadCount = 8;
+        int wordCount = 2_000;
+        ConcurrentBSTree<WordNode> words = new ConcurrentBSTree<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            String filename = "concurrent-postings-" + t + ".txt";
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // every thread adds every word on two lines, on lines that count up like those of a file
+                for (int line = 1; line <= 2 * wordCount; line++) {
+                    int word = (int) (((long) (line / 2 + offset * wordCount / threadCount) * 7919) % wordCount);
+                    words.getOrAdd(new WordNode("w" + word)).addFileAndLineNumberConcurrently(filename, line);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(wordCount, words.size());
+        Iterator<WordNode> iterator = words.inorderIterator();
+        int lineCount = 0;
+        while (iterator.hasNext()) {
+            WordNode wordNode = iterator.next();
+            assertEquals(threadCount, wordNode.getFileCount());
+            for (int i = 0; i < threadCount; i++) {
+                for (int j = 1; j < wordNode.getLineNumbers(i).size(); j++)
+                    assertTrue(wordNode.getLineNumbers(i).get(j - 1) < wordNode.getLineNumbers(i).get(j));
+                lineCount += wordNode.getLineNumbers(i).size();
+            }
+        }
+        assertEquals(threadCount * 2 * wordCount, lineCount);
+    }
+
+    /**
+     * Tests that threads computing new elements from the same keys lose no update, and that updates racing with
+     * removals of their keys put the keys back instead of failing.
+     */
+    @Test
+    public void testConcurrentCompute() throws InterruptedException {
+        int threadCount = 8;
+        int keyCount = 16;
+        int updates = 5_000;
+        ConcurrentBSTree<Count> counts = new ConcurrentBSTree<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < updates; i++) {
+                        Count key = new Count((i + offset) % keyCount, 0);
+                        counts.compute(key, count -> new Count(count.key, count.value + 1));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(keyCount, counts.size());
+        int total = 0;
+        Iterator<Count> iterator = counts.inorderIterator();
+        while (iterator.hasNext())
+            total += iterator.next().value;
+        assertEquals(threadCount * updates, total);
+
+        // one thread removes the keys the others update
+        CountDownLatch racing = new CountDownLatch(1);
+        threads.clear();
+        for (int t = 0; t < threadCount; t++) {
+            boolean remover = t == 0;
+            Thread thread = new Thread(() -> {
+                try {
+                    racing.await();
+                    for (int i = 0; i < updates; i++) {
+                        Count key = new Count(i % keyCount, 0);
+                        if (remover)
+                            counts.remove(key);
+                        else
+                            assertTrue(counts.compute(key, count -> new Count(count.key, count.value + 1)).value > 0);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        racing.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertThrows(IllegalArgumentException.class, () -> counts.compute(new Count(1, 0), count -> new Count(2, 0)));
+    }
+
+    /**
+     * A count kept for a key, ordered by the key alone, which compute replaces with a new one
+     */
+    private static final class Count implements Comparable<Count> {
+        private final int key;
+        private final int value;
+
+        private Count(int key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Count other) {
+            return Integer.compare(key, other.key);
+        }
+    }
+
+    // helper method to list the elements of an iterator
+    private static String elements(Iterator<Integer> iterator) {
+        List<Integer> elements = new ArrayList<>();
+        while (iterator.hasNext())
+            elements.add(iterator.next());
+        return elements.toString();
+    }
+}
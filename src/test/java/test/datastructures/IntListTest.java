@@ -0,0 +1,84 @@
+package test.datastructures;
+
+import main.datastructures.IntList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+/**
+ * This class contains tests for the IntList of primitive ints.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class IntListTest {
+
+    /**
+     * The IntList that will be used in the tests.
+     */
+    private IntList list;
+
+    /**
+     * This method is executed before each test. It initializes the IntList.
+     */
+    @BeforeEach
+    public void setUp() {
+        list = new IntList();
+    }
+
+    /**
+     * Tests adding values past the initial capacity.
+     */
+    @Test
+    public void testAddAndGet() {
+        assertTrue(list.isEmpty());
+        for (int i = 0; i < 1000; i++) {
+            list.add(i * 3);
+        }
+        assertEquals(1000, list.size());
+        assertFalse(list.isEmpty());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 3, list.get(i));
+        }
+    }
+
+    /**
+     * Tests that indexes outside the list are rejected.
+     */
+    @Test
+    public void testGetOutOfBounds() {
+        list.add(1);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IntList(-1));
+    }
+
+    /**
+     * Tests the addAll, toArray, equals and trimToSize methods.
+     */
+    @Test
+    public void testAddAll() {
+        list.add(1);
+        list.add(2);
+        IntList other = new IntList(0);
+        other.add(3);
+        other.add(4);
+        other.add(5);
+        list.addAll(other);
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, list.toArray());
+        list.trimToSize();
+        assertEquals(5, list.size());
+        list.add(6);
+        IntList expected = new IntList();
+        for (int i = 1; i <= 6; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals("[1, 2, 3, 4, 5, 6]", list.toString());
+        list.clear();
+        assertTrue(list.isEmpty());
+        list.add(7);
+        assertArrayEquals(new int[]{7}, list.toArray());
+    }
+}
@@ -0,0 +1,303 @@
+package test.datastructures;
+
+import main.datastructures.AVLTree;
+import main.datastructures.OffHeapBSTree;
+import main.datastructures.interfaces.Codec;
+import main.datastructures.interfaces.Iterator;
+import main.exceptions.TreeException;
+import main.utils.WordNode;
+import main.utils.WordNodeCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * This class contains tests for the OffHeapBSTree.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class OffHeapBSTreeTest {
+
+    /**
+     * Stores an Integer as 4 bytes.
+     */
+    private static final Codec<Integer> INTEGER_CODEC = new Codec<Integer>() {
+        @Override
+        public byte[] encode(Integer element) {
+            return ByteBuffer.allocate(4).putInt(element).array();
+        }
+
+        @Override
+        public Integer decode(ByteBuffer buffer, int offset, int length) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * The OffHeapBSTree that will be used in the tests.
+     */
+    private OffHeapBSTree<Integer> tree;
+
+    /**
+     * This method is executed before each test. It initializes the OffHeapBSTree.
+     */
+    @BeforeEach
+    public void setUp() {
+        tree = new OffHeapBSTree<>(INTEGER_CODEC);
+    }
+
+    /**
+     * Tests the basic operations.
+     */
+    @Test
+    public void testBasicOperations() {
+        assertThrows(TreeException.class, () -> tree.getRoot());
+        assertTrue(tree.isEmpty());
+        assertEquals(-1, tree.getHeight());
+        assertTrue(tree.add(20));
+        assertTrue(tree.add(10));
+        assertFalse(tree.add(20));
+        assertEquals(30, tree.getOrAdd(30));
+        assertEquals(3, tree.size());
+        assertEquals(1, tree.getHeight());
+        assertEquals(20, tree.getRoot().getElement());
+        assertEquals(10, tree.getRoot().getLeft().getElement());
+        assertEquals(3, tree.getRoot().getSize());
+        assertEquals(20, tree.search(30).getParent().getElement());
+        assertTrue(tree.contains(10));
+        assertEquals(10, tree.search(10).getElement());
+        assertNull(tree.search(15));
+        assertThrows(NullPointerException.class, () -> tree.add(null));
+        assertTrue(tree.remove(10));
+        assertFalse(tree.remove(10));
+        assertEquals(2, tree.size());
+        tree.clear();
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+        assertTrue(tree.add(5));
+    }
+
+    /**
+     * Tests that the tree takes the same shape as an AVLTree given the same elements, by comparing all three walks.
+     */
+    @Test
+    public void testSameShapeAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(100_000);
+            assertEquals(avltree.add(value), tree.add(value));
+        }
+        assertEquals(avltree.size(), tree.size());
+        assertEquals(avltree.getHeight(), tree.getHeight());
+        assertSameSequence(avltree.inorderIterator(), tree.inorderIterator());
+        assertSameSequence(avltree.preorderIterator(), tree.preorderIterator());
+        assertSameSequence(avltree.postorderIterator(), tree.postorderIterator());
+    }
+
+    /**
+     * Tests that removing keeps the tree the same shape as an AVLTree that the same elements are removed from, and
+     * that the records of removed nodes are reused.
+     */
+    @Test
+    public void testRemoveSameShapeAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(43);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(30_000);
+                assertEquals(avltree.add(value), tree.add(value));
+            }
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(30_000);
+                assertEquals(avltree.remove(value), tree.remove(value));
+            }
+            assertEquals(avltree.size(), tree.size());
+            assertEquals(avltree.getHeight(), tree.getHeight());
+            assertSameSequence(avltree.inorderIterator(), tree.inorderIterator());
+            assertSameSequence(avltree.preorderIterator(), tree.preorderIterator());
+            assertSameSequence(avltree.postorderIterator(), tree.postorderIterator());
+        }
+        Iterator<Integer> iterator = avltree.inorderIterator();
+        while (iterator.hasNext())
+            assertTrue(tree.remove(iterator.next()));
+        assertTrue(tree.isEmpty());
+        assertEquals(-1, tree.getHeight());
+        assertFalse(tree.inorderIterator().hasNext());
+    }
+
+    /**
+     * Tests that compute changes the stored element, whether the changed element takes more bytes or fewer, and
+     * that changing a copy returned by getOrAdd doesn't.
+     */
+    @Test
+    public void testOrderQueriesSameAsAVLTree() {
+        AVLTree<Integer> avltree = new AVLTree<>();
+        Random random = new Random(44);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5_000; i++) {
+                int value = random.nextInt(10_000);
+                assertEquals(avltree.add(value), tree.add(value));
+            }
+            for (int i = 0; i < 2_000; i++) {
+                int value = random.nextInt(10_000);
+                assertEquals(avltree.remove(value), tree.remove(value));
+            }
+            for (int i = 0; i < 1_000; i++) {
+                int value = random.nextInt(10_002) - 1;
+                assertEquals(avltree.floor(value), tree.floor(value));
+                assertEquals(avltree.ceiling(value), tree.ceiling(value));
+                assertEquals(avltree.rank(value), tree.rank(value));
+            }
+            for (int i = 0; i < avltree.size(); i += 37)
+                assertEquals(avltree.select(i), tree.select(i));
+            for (int i = 0; i < 50; i++) {
+                int from = random.nextInt(10_000);
+                int to = from + random.nextInt(500);
+                assertSameSequence(avltree.rangeIterator(from, to), tree.rangeIterator(from, to));
+            }
+            assertSameSequence(avltree.rangeIterator(null, 5_000), tree.rangeIterator(null, 5_000));
+            assertSameSequence(avltree.rangeIterator(5_000, null), tree.rangeIterator(5_000, null));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(tree.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(-1));
+    }
+
+    @Test
+    public void testCompute() {
+        OffHeapBSTree<WordNode> words = new OffHeapBSTree<>(new WordNodeCodec());
+        words.add(new WordNode("apple"));
+        words.add(new WordNode("zebra"));
+        words.getOrAdd(new WordNode("tree")).addFileAndLineNumber("offheap-compute.txt", 1);
+        assertEquals(0, words.search(new WordNode("tree")).getElement().getFileCount());
+
+        for (int line = 1; line <= 3; line++) {
+            WordNode wordNode = new WordNode("Tree");
+            wordNode.addFileAndLineNumber("offheap-compute.txt", line);
+            WordNode updated = words.compute(wordNode, resident -> {
+                resident.merge(wordNode);
+                return resident;
+            });
+            assertEquals(line, updated.getLineNumbers(0).size());
+        }
+        WordNode tree = words.search(new WordNode("TREE")).getElement();
+        assertEquals("tree", tree.getWord());
+        assertEquals("[1, 2, 3]", tree.getLineNumbers("offheap-compute.txt").toString());
+
+        words.compute(new WordNode("tree"), resident -> new WordNode("TrEe"));
+        assertEquals(0, words.search(new WordNode("tree")).getElement().getFileCount());
+        assertEquals("TrEe", words.search(new WordNode("tree")).getElement().getWord());
+        assertThrows(IllegalArgumentException.class, () -> words.compute(new WordNode("tree"),
+                resident -> new WordNode("trees")));
+        assertEquals(3, words.size());
+        Iterator<WordNode> iterator = words.inorderIterator();
+        for (String word : new String[]{"apple", "TrEe", "zebra"}) {
+            assertEquals(word, iterator.next().getWord());
+        }
+    }
+
+    /**
+     * Tests that a serialized tree is read back with the same elements, and can be added to and removed from.
+     */
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        OffHeapBSTree<WordNode> words = new OffHeapBSTree<>(new WordNodeCodec());
+        for (int i = 0; i < 1_000; i++) {
+            WordNode wordNode = new WordNode("word" + i);
+            wordNode.addFileAndLineNumber("offheap-serialized.txt", i + 1);
+            words.add(wordNode);
+        }
+        words.remove(new WordNode("word500"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(words);
+        }
+        OffHeapBSTree<WordNode> read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            OffHeapBSTree<WordNode> copy = (OffHeapBSTree<WordNode>) in.readObject();
+            read = copy;
+        }
+        assertEquals(999, read.size());
+        Iterator<WordNode> expected = words.inorderIterator();
+        Iterator<WordNode> actual = read.inorderIterator();
+        while (expected.hasNext()) {
+            WordNode wordNode = actual.next();
+            assertEquals(0, expected.next().compareTo(wordNode));
+            assertEquals("offheap-serialized.txt", wordNode.getFilename(0));
+        }
+        assertFalse(actual.hasNext());
+        assertTrue(read.remove(new WordNode("word1")));
+        assertTrue(read.add(new WordNode("word500")));
+        assertEquals(999, read.size());
+    }
+
+    /**
+     * Tests that sorted inserts spanning several buffers keep the tree balanced.
+     */
+    @Test
+    public void testSortedInserts() {
+        int count = 1_000_000;
+        for (int i = 0; i < count; i++) {
+            tree.add(i);
+        }
+        assertEquals(count, tree.size());
+        double limit = 1.44 * Math.log(count + 2) / Math.log(2);
+        assertTrue(tree.getHeight() <= limit, "height was " + tree.getHeight());
+        Iterator<Integer> iterator = tree.inorderIterator();
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests storing WordNodes, which are compared by word ignoring case.
+     */
+    @Test
+    public void testWordNodes() {
+        OffHeapBSTree<WordNode> words = new OffHeapBSTree<>(new WordNodeCodec());
+        WordNode tree = new WordNode("Tree");
+        tree.addFileAndLineNumber("a.txt", 3);
+        tree.addFileAndLineNumber("a.txt", 7);
+        tree.addFileAndLineNumber("b.txt", 1);
+        words.add(tree);
+        words.add(new WordNode("apple"));
+        words.add(new WordNode("tre"));
+        words.add(new WordNode("café"));
+        assertFalse(words.add(new WordNode("TREE")));
+        assertTrue(words.contains(new WordNode("CAFÉ")));
+
+        WordNode copy = words.search(new WordNode("tree")).getElement();
+        assertEquals("Tree", copy.getWord());
+        assertEquals(2, copy.getFileCount());
+        assertEquals("a.txt", copy.getFilename(0));
+        assertArrayEquals(new int[]{3, 7}, copy.getLineNumbers(0).toArray());
+        assertArrayEquals(new int[]{1}, copy.getLineNumbers("b.txt").toArray());
+
+        Iterator<WordNode> iterator = words.inorderIterator();
+        for (String word : new String[]{"apple", "café", "tre", "Tree"}) {
+            assertEquals(word, iterator.next().getWord());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    // checks that two iterators return equal elements in the same order
+    private static <E> void assertSameSequence(Iterator<E> expected, Iterator<E> actual) {
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            assertEquals(expected.next(), actual.next());
+        }
+        assertFalse(actual.hasNext());
+    }
+}
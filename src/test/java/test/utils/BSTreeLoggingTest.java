@@ -0,0 +1,82 @@
+package test.utils;
+
+import main.datastructures.AVLTree;
+import main.datastructures.BSTree;
+import main.utils.BSTreeLogging;
+import main.utils.WordNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class contains tests for the reports written by BSTreeLogging.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class BSTreeLoggingTest {
+
+    /**
+     * Tests that reports rendered in parallel are byte-identical to reports rendered on one thread.
+     */
+    @Test
+    public void testParallelReportsMatchSequential(@TempDir Path directory) throws IOException {
+        BSTree<WordNode> tree = new AVLTree<>();
+        Random random = new Random(23);
+        for (int i = 0; i < 100_000; i++) {
+            WordNode wordNode = tree.getOrAdd(new WordNode("w" + random.nextInt(60_000)));
+            wordNode.addFileAndLineNumber("file" + random.nextInt(5) + ".txt", i + 1);
+        }
+        for (int report = 0; report < 3; report++) {
+            byte[] sequential = writeReport(tree, report, 1, directory.resolve("sequential.txt"));
+            byte[] parallel = writeReport(tree, report, 4, directory.resolve("parallel.txt"));
+            assertTrue(sequential.length > 0);
+            assertArrayEquals(sequential, parallel);
+        }
+        assertEquals(0, writeReport(new BSTree<>(), 2, 4, directory.resolve("empty.txt")).length);
+    }
+
+    /**
+     * Tests that a report written to a .gz file is the gzipped report.
+     */
+    @Test
+    public void testGzipReport(@TempDir Path directory) throws IOException {
+        BSTree<WordNode> tree = new AVLTree<>();
+        for (int i = 0; i < 50_000; i++)
+            tree.getOrAdd(new WordNode("w" + i)).addFileAndLineNumber("file" + i % 3 + ".txt", i + 1);
+        byte[] plain = writeReport(tree, 2, 2, directory.resolve("report.txt"));
+        byte[] compressed = writeReport(tree, 2, 2, directory.resolve("report.txt.GZ"));
+        assertTrue(compressed.length < plain.length / 2);
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            for (int count; (count = input.read(buffer)) != -1; )
+                report.write(buffer, 0, count);
+        }
+        assertArrayEquals(plain, report.toByteArray());
+    }
+
+    // helper method to write one of the three reports to a file and read it back
+    private static byte[] writeReport(BSTree<WordNode> tree, int report, int parallelism, Path file)
+            throws IOException {
+        BSTreeLogging logging = new BSTreeLogging(tree, file.toString());
+        logging.setParallelism(parallelism);
+        if (report == 0)
+            logging.printWordsWithFiles();
+        else if (report == 1)
+            logging.printWordsWithLines();
+        else
+            logging.printWordsWithLineNumbers();
+        logging.close();
+        return Files.readAllBytes(file);
+    }
+}
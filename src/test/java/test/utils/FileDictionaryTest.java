@@ -0,0 +1,88 @@
+package test.utils;
+
+import main.utils.FileDictionary;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class contains tests for giving file names ids with the FileDictionary. The dictionary is shared by every
+ * test, so each test uses file names of its own.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class FileDictionaryTest {
+
+    /**
+     * Tests that ids are handed out in the order names are first seen, that a name keeps its id, and that finding
+     * an id doesn't give a name one.
+     */
+    @Test
+    public void testIds() {
+        String first = "filedictionarytest-ids-1.txt";
+        String second = "filedictionarytest-ids-2.txt";
+        assertEquals(-1, FileDictionary.findId(first));
+        int size = FileDictionary.size();
+        int id = FileDictionary.getId(first);
+        assertEquals(size, id);
+        assertEquals(id + 1, FileDictionary.getId(second));
+        assertEquals(id, FileDictionary.getId(first));
+        assertEquals(id, FileDictionary.findId(first));
+        assertEquals(size + 2, FileDictionary.size());
+        assertEquals(first, FileDictionary.getPath(id));
+        assertEquals(second, FileDictionary.getPath(id + 1));
+
+        assertEquals(-1, FileDictionary.findId("filedictionarytest-ids-3.txt"));
+        assertEquals(size + 2, FileDictionary.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> FileDictionary.getPath(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> FileDictionary.getPath(FileDictionary.size()));
+    }
+
+    /**
+     * Tests that threads asking for the ids of the same names at the same time get one id per name, and that the
+     * name of every id they count can be read while the dictionary grows.
+     */
+    @Test
+    public void testConcurrentIds() throws InterruptedException {
+        int threadCount = 8;
+        int nameCount = 1_000;
+        int size = FileDictionary.size();
+        int[][] ids = new int[threadCount][nameCount];
+        AtomicInteger missingPaths = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int[] threadIds = ids[t];
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < nameCount; i++) {
+                    threadIds[i] = FileDictionary.getId("filedictionarytest-concurrent-" + i + ".txt");
+                    if (FileDictionary.getPath(FileDictionary.size() - 1) == null)
+                        missingPaths.incrementAndGet();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(size + nameCount, FileDictionary.size());
+        assertEquals(0, missingPaths.get());
+        for (int i = 0; i < nameCount; i++) {
+            for (int t = 1; t < threadCount; t++)
+                assertEquals(ids[0][i], ids[t][i]);
+            assertEquals("filedictionarytest-concurrent-" + i + ".txt", FileDictionary.getPath(ids[0][i]));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package test.utils;
+
+import main.utils.GzipChannel;
+import main.utils.ReportWriter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class contains tests for the GzipChannel.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class GzipChannelTest {
+
+    /**
+     * Tests that output of many blocks, compressed on several threads, is one gzip stream of what was written.
+     */
+    @Test
+    public void testCompressesInOrder() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Random random = new Random(24);
+        try (ReportWriter writer = new ReportWriter(new GzipChannel(Channels.newChannel(output), 4))) {
+            for (int i = 0; i < 200_000; i++) {
+                byte[] line = ("w" + random.nextInt(50_000) + ": file" + random.nextInt(5)
+                        + ".txt (Line Numbers: " + i + " ) \n").getBytes("US-ASCII");
+                writer.write(line);
+                expected.write(line);
+            }
+            byte[] noise = new byte[300_000];
+            random.nextBytes(noise);
+            writer.write(noise);
+            expected.write(noise);
+        }
+        assertTrue(output.size() < expected.size() / 2);
+        assertArrayEquals(expected.toByteArray(), gunzip(output.toByteArray()));
+    }
+
+    /**
+     * Tests that nothing written gives an empty gzip stream, and that writing after closing fails.
+     */
+    @Test
+    public void testEmptyAndClosed() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GzipChannel channel = new GzipChannel(Channels.newChannel(output), 1);
+        assertTrue(channel.isOpen());
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertEquals(0, gunzip(output.toByteArray()).length);
+        assertThrows(ClosedChannelException.class, () -> channel.write(ByteBuffer.allocate(1)));
+        assertThrows(IllegalArgumentException.class, () -> new GzipChannel(Channels.newChannel(output), 0));
+    }
+
+    // helper method to read a gzip stream back
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            for (int count; (count = input.read(buffer)) != -1; )
+                bytes.write(buffer, 0, count);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,85 @@
+package test.utils;
+
+import main.datastructures.AVLTree;
+import main.datastructures.interfaces.Iterator;
+import main.utils.PostingSorter;
+import main.utils.WordNode;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class contains tests for the PostingSorter.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class PostingSorterTest {
+
+    /**
+     * Tests that sorting postings, with and without spilling runs to disk, gives the same WordNodes as inserting the
+     * words one at a time, including the spelling each word was first seen with.
+     */
+    @Test
+    public void testSameAsInserting() throws IOException {
+        String[] words = {"tree", "Tree", "TREE", "apple", "Apple", "zebra", "café", "CAFÉ", "b", "a"};
+        Random random = new Random(18);
+        int[][] postings = new int[20_000][];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = new int[]{random.nextInt(words.length), random.nextInt(3), i / 7 + 1};
+        }
+
+        AVLTree<WordNode> tree = new AVLTree<>();
+        for (int[] posting : postings) {
+            tree.getOrAdd(new WordNode(words[posting[0]])).addFileAndLineNumber(posting[1], posting[2]);
+        }
+
+        for (int runSize : new int[]{1, 333, postings.length}) {
+            PostingSorter sorter = new PostingSorter(runSize);
+            for (int[] posting : postings) {
+                sorter.add(words[posting[0]], posting[1], posting[2]);
+            }
+            Iterator<WordNode> iterator = tree.inorderIterator();
+            try (PostingSorter.SortedRun sorted = sorter.finish()) {
+                while (sorted.hasNext()) {
+                    WordNode actual = sorted.next();
+                    WordNode expected = iterator.next();
+                    assertEquals(expected.getWord(), actual.getWord());
+                    assertEquals(expected.getFileCount(), actual.getFileCount());
+                    for (int i = 0; i < expected.getFileCount(); i++) {
+                        assertEquals(expected.getFileId(i), actual.getFileId(i));
+                        assertEquals(expected.getLineNumbers(i), actual.getLineNumbers(i));
+                    }
+                }
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    /**
+     * Tests merging sorted lists, where the WordNode from the earliest list is kept.
+     */
+    @Test
+    public void testMerge() {
+        WordNode first = new WordNode("Tree");
+        first.addFileAndLineNumber(1, 1);
+        WordNode second = new WordNode("tree");
+        second.addFileAndLineNumber(1, 2);
+        second.addFileAndLineNumber(2, 5);
+        int[] visits = new int[2];
+        List<WordNode> merged = PostingSorter.merge(Arrays.asList(
+                Arrays.asList(new WordNode("a"), first).iterator(),
+                Arrays.asList(new WordNode("b"), second, new WordNode("z")).iterator()),
+                (wordNode, source) -> visits[source]++);
+        assertEquals(4, merged.size());
+        assertSame(first, merged.get(2));
+        assertArrayEquals(new int[]{1, 2}, first.getLineNumbers(0).toArray());
+        assertArrayEquals(new int[]{5}, first.getLineNumbers(1).toArray());
+        assertArrayEquals(new int[]{2, 3}, visits);
+        assertTrue(PostingSorter.merge(Arrays.asList(), null).isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package test.utils;
+
+import main.utils.ReportWriter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * This class contains tests for the ReportWriter.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class ReportWriterTest {
+
+    /**
+     * Tests that text, characters and ints are written like a PrintWriter would write them.
+     */
+    @Test
+    public void testWritesLikeStrings() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (ReportWriter writer = new ReportWriter(Channels.newChannel(output))) {
+            int[] values = {0, 7, 10, 99, 100, 123456789, Integer.MAX_VALUE, -1, -42, Integer.MIN_VALUE};
+            for (int value : values) {
+                writer.write(value);
+                writer.write(' ');
+                expected.append(value).append(' ');
+            }
+            for (String text : new String[]{"café: ", "a.txt (Line Numbers: ", "日本", ") ", ""}) {
+                writer.write(text);
+                expected.append(text);
+            }
+            writer.write(writer.encode("Ωmega"));
+            writer.write('é');
+            writer.write('\n');
+            expected.append("Ωmega").append('é').append('\n');
+        }
+        assertArrayEquals(expected.toString().getBytes(Charset.defaultCharset()), output.toByteArray());
+    }
+
+    /**
+     * Tests that writing more than the buffer holds flushes it in order.
+     */
+    @Test
+    public void testLargeOutput() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        byte[] block = new byte[3 << 20];
+        Arrays.fill(block, (byte) 'x');
+        try (ReportWriter writer = new ReportWriter(Channels.newChannel(output))) {
+            for (int i = 0; i < 300_000; i++) {
+                writer.write(i);
+                writer.write(' ');
+                expected.append(i).append(' ');
+            }
+            writer.write(block);
+            writer.write("end");
+        }
+        expected.append(new String(block, Charset.defaultCharset())).append("end");
+        assertArrayEquals(expected.toString().getBytes(Charset.defaultCharset()), output.toByteArray());
+    }
+}
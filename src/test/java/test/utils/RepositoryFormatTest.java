@@ -0,0 +1,244 @@
+package test.utils;
+
+import main.datastructures.AVLTree;
+import main.datastructures.IntList;
+import main.utils.FileMetadata;
+import main.utils.RepositoryFormat;
+import main.utils.WordNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class contains tests for reading and writing repository files with RepositoryFormat.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class RepositoryFormatTest {
+
+    /**
+     * Tests that words, files, line numbers and metadata read back as they were written, with line numbers that need
+     * several bytes, line numbers that go backwards, and file names that are only written once.
+     */
+    @Test
+    public void testRoundTrip(@TempDir Path directory) throws IOException {
+        String first = "repositoryformat-ü-first.txt";
+        String second = "repositoryformat-second.txt";
+        AVLTree<WordNode> tree = new AVLTree<>();
+        tree.add(wordNode("apple", first, 1, 2, 300, 70_000, Integer.MAX_VALUE));
+        tree.add(wordNode("Zebra", second, 9, 4, 4, 1));
+        WordNode shared = wordNode("café", first, 5);
+        shared.replaceFileLines(second, lines(1 << 28, 0, 1 << 28));
+        tree.add(shared);
+        Map<String, FileMetadata> metadata = new LinkedHashMap<>();
+        metadata.put(second, new FileMetadata(12, 345_678_901_234L, new byte[]{1, 2, 3}));
+        metadata.put(first, new FileMetadata(0, -1, new byte[0]));
+
+        Path file = directory.resolve("repository.dat");
+        RepositoryFormat.write(tree, metadata, file);
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals("WTRP", new String(bytes, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals(3, bytes[4]);
+        assertEquals("WTRP", new String(bytes, bytes.length - 4, 4, StandardCharsets.US_ASCII));
+        assertEquals(1, count(bytes, first.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, count(bytes, second.getBytes(StandardCharsets.UTF_8)));
+
+        Map<String, FileMetadata> readMetadata = new LinkedHashMap<>();
+        List<WordNode> wordNodes = RepositoryFormat.read(file, readMetadata);
+        assertEquals(3, wordNodes.size());
+        assertEquals("apple", wordNodes.get(0).getWord());
+        assertEquals("café", wordNodes.get(1).getWord());
+        assertEquals("Zebra", wordNodes.get(2).getWord());
+        assertEquals(lines(1, 2, 300, 70_000, Integer.MAX_VALUE), wordNodes.get(0).getLineNumbers(first));
+        assertEquals(lines(5), wordNodes.get(1).getLineNumbers(first));
+        assertEquals(lines(1 << 28, 0, 1 << 28), wordNodes.get(1).getLineNumbers(second));
+        assertEquals(lines(9, 4, 4, 1), wordNodes.get(2).getLineNumbers(second));
+        assertEquals(1, wordNodes.get(2).getFileCount());
+
+        assertEquals(metadata.keySet(), readMetadata.keySet());
+        assertEquals(345_678_901_234L, readMetadata.get(second).getLastModified());
+        assertArrayEquals(new byte[]{1, 2, 3}, readMetadata.get(second).getContentHash());
+        assertTrue(readMetadata.get(first).hasSameContent(metadata.get(first)));
+    }
+
+    /**
+     * Tests that a file that is not a repository, a newer version, and file indexes or counts that are out of range
+     * are reported as IOExceptions rather than read.
+     */
+    @Test
+    public void testMalformed(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("repository.dat");
+        // the magic number, version 3, a dictionary of one file, and no metadata
+        byte[] header = {0x57, 0x54, 0x52, 0x50, 3, 1, 1, 'a', 0};
+
+        assertReadFails(file, "Not a WordTracker repository", 'W', 'T', 'R', 'J', 3);
+        assertReadFails(file, "Unsupported repository version 4", 0x57, 0x54, 0x52, 0x50, 4);
+        // a word in the file at index 1 of a dictionary of one file
+        assertReadFails(file, "Malformed repository", concat(header, 1, 1, 'w', 1, 1, 1, 2));
+        // metadata for the file at index 5
+        assertReadFails(file, "Malformed repository", 0x57, 0x54, 0x52, 0x50, 3, 1, 1, 'a', 1, 5);
+        // a negative file index
+        assertReadFails(file, "Malformed repository", concat(header, 1, 1, 'w', 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F));
+        // more words than the file has bytes
+        assertReadFails(file, "Malformed repository", concat(header, 0xFF, 0xFF, 0x7F));
+        // a file cut short
+        assertReadFails(file, "Malformed repository", concat(header, 1, 1, 'w', 1, 0));
+    }
+
+    /**
+     * Tests that records appended to a journal are read back, with the last record of a file counting and a record
+     * holding only metadata keeping the words of the record before it.
+     */
+    @Test
+    public void testJournalAppendAndRead(@TempDir Path directory) throws IOException {
+        Path journal = directory.resolve("repository.log");
+        String first = "journal-first.txt";
+        String second = "journal-second.txt";
+        Map<String, FileMetadata> metadata = new LinkedHashMap<>();
+        metadata.put(first, new FileMetadata(1, 10, new byte[]{1}));
+        metadata.put(second, new FileMetadata(2, 20, new byte[]{2}));
+        Map<String, List<WordNode>> postings = new LinkedHashMap<>();
+        postings.put(first, Arrays.asList(wordNode("one", first, 1, 3), wordNode("two", first, 2)));
+        postings.put(second, Collections.singletonList(wordNode("three", second, 7)));
+        RepositoryFormat.appendJournal(journal, postings, metadata);
+
+        metadata.put(first, new FileMetadata(1, 11, new byte[]{1}));
+        RepositoryFormat.appendJournal(journal, Collections.singletonMap(first, null), metadata);
+        metadata.put(second, new FileMetadata(3, 30, new byte[]{3}));
+        RepositoryFormat.appendJournal(journal,
+                Collections.singletonMap(second, Collections.singletonList(wordNode("four", second, 1))), metadata);
+
+        RepositoryFormat.Journal read = RepositoryFormat.readJournal(journal);
+        assertNull(read.getDamage());
+        Map<String, RepositoryFormat.JournalRecord> records = read.getRecords();
+        assertEquals(Arrays.asList(first, second), new ArrayList<>(records.keySet()));
+        RepositoryFormat.JournalRecord firstRecord = records.get(first);
+        assertEquals(11, firstRecord.getMetadata().getLastModified());
+        assertEquals(2, firstRecord.getWordNodes().size());
+        assertEquals(lines(1, 3), firstRecord.getWordNodes().get(0).getLineNumbers(first));
+        RepositoryFormat.JournalRecord secondRecord = records.get(second);
+        assertEquals(30, secondRecord.getMetadata().getLastModified());
+        assertEquals(1, secondRecord.getWordNodes().size());
+        assertEquals("four", secondRecord.getWordNodes().get(0).getWord());
+    }
+
+    /**
+     * Tests that a journal cut short anywhere in its last record, or whose last record fails its checksum, keeps the
+     * records before it and has the damaged record cut off, and that a journal cut short in its header is emptied.
+     */
+    @Test
+    public void testJournalTornTail(@TempDir Path directory) throws IOException {
+        Path journal = directory.resolve("repository.log");
+        String first = "torn-first.txt";
+        String second = "torn-second.txt";
+        Map<String, FileMetadata> metadata = new LinkedHashMap<>();
+        metadata.put(first, new FileMetadata(1, 10, new byte[]{1}));
+        metadata.put(second, new FileMetadata(2, 20, new byte[]{2}));
+        RepositoryFormat.appendJournal(journal,
+                Collections.singletonMap(first, Collections.singletonList(wordNode("kept", first, 1))), metadata);
+        int firstSize = (int) Files.size(journal);
+        RepositoryFormat.appendJournal(journal,
+                Collections.singletonMap(second, Arrays.asList(wordNode("lost", second, 1, 300), wordNode("z", second, 2))),
+                metadata);
+        byte[] bytes = Files.readAllBytes(journal);
+
+        for (int length = firstSize; length < bytes.length; length++) {
+            Files.write(journal, Arrays.copyOf(bytes, length));
+            RepositoryFormat.Journal read = RepositoryFormat.readJournal(journal);
+            assertEquals(Collections.singleton(first), read.getRecords().keySet(), "cut at " + length);
+            // a journal cut where a record ends is whole
+            assertEquals(length > firstSize, read.getDamage() != null, "cut at " + length);
+            assertEquals(firstSize, Files.size(journal), "cut at " + length);
+        }
+
+        byte[] damaged = bytes.clone();
+        damaged[damaged.length - 1] ^= 1;
+        Files.write(journal, damaged);
+        RepositoryFormat.Journal read = RepositoryFormat.readJournal(journal);
+        assertEquals(Collections.singleton(first), read.getRecords().keySet());
+        assertEquals("Malformed journal: checksum mismatch", read.getDamage());
+        assertEquals(firstSize, Files.size(journal));
+        assertNull(RepositoryFormat.readJournal(journal).getDamage());
+
+        for (int length = 0; length < 5; length++) {
+            Files.write(journal, Arrays.copyOf(bytes, length));
+            assertTrue(RepositoryFormat.readJournal(journal).getRecords().isEmpty());
+            assertEquals(0, Files.size(journal));
+        }
+    }
+
+    /**
+     * Tests that a journal with an unknown header or a newer version is refused and left as it is.
+     */
+    @Test
+    public void testJournalRefused(@TempDir Path directory) throws IOException {
+        Path journal = directory.resolve("repository.log");
+        byte[][] journals = {
+                {'W', 'T', 'R', 'P', 2, 0, 0, 0, 0, 0},
+                {'W', 'T', 'R', 'J', 9, 0, 0, 0, 0, 0},
+                {'W', 'T', 'R', 'J', 0}};
+        for (byte[] bytes : journals) {
+            Files.write(journal, bytes);
+            assertThrows(IOException.class, () -> RepositoryFormat.readJournal(journal));
+            assertArrayEquals(bytes, Files.readAllBytes(journal));
+        }
+    }
+
+    // helper method to make a WordNode that occurs in one file
+    private static WordNode wordNode(String word, String filename, int... lineNumbers) {
+        WordNode wordNode = new WordNode(word);
+        wordNode.replaceFileLines(filename, lines(lineNumbers));
+        return wordNode;
+    }
+
+    private static IntList lines(int... lineNumbers) {
+        IntList list = new IntList();
+        for (int lineNumber : lineNumbers)
+            list.add(lineNumber);
+        return list;
+    }
+
+    // helper method to count where a sequence of bytes occurs
+    private static int count(byte[] bytes, byte[] sequence) {
+        int count = 0;
+        for (int i = 0; i + sequence.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < sequence.length && bytes[i + j] == sequence[j])
+                j++;
+            if (j == sequence.length)
+                count++;
+        }
+        return count;
+    }
+
+    private static int[] concat(byte[] first, int... second) {
+        int[] bytes = new int[first.length + second.length];
+        for (int i = 0; i < first.length; i++)
+            bytes[i] = first[i];
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    // helper method to write bytes to a file and check that reading it fails with the given message
+    private static void assertReadFails(Path file, String message, int... bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int b : bytes)
+            output.write(b);
+        Files.write(file, output.toByteArray());
+        IOException ex = assertThrows(IOException.class, () -> RepositoryFormat.read(file, new LinkedHashMap<>()));
+        assertTrue(ex.getMessage().startsWith(message), ex.getMessage());
+    }
+}
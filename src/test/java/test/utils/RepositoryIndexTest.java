@@ -0,0 +1,125 @@
+package test.utils;
+
+import main.datastructures.BSTree;
+import main.datastructures.BSTreeNode;
+import main.datastructures.interfaces.Iterator;
+import main.utils.RepositoryIndex;
+import main.utils.WordNode;
+import main.utils.WordQuery;
+import main.utils.WordTracker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class contains tests for looking up words in a saved repository with a RepositoryIndex.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class RepositoryIndexTest {
+
+    /**
+     * Words looked up besides the ones in the repository, which sort before, between and after them.
+     */
+    private static final String[] ABSENT_WORDS = {"", "0", "a", "W", "w1x", "w999", "zzz", "ŧ"};
+
+    /**
+     * Tests that binary-searching the offset table finds every saved word, and no absent word, with the repository
+     * mapped in regions small enough that words, line numbers and offsets cross from one region to the next.
+     */
+    @Test
+    public void testLookupMatchesTree(@TempDir Path directory) throws IOException {
+        WordTracker wordTracker = new WordTracker(directory, true);
+        Random random = new Random(11);
+        for (int i = 0; i < 4; i++)
+            wordTracker.processFile(WordTrackerTest.write(directory.resolve("input/file" + i + ".txt"),
+                    WordTrackerTest.randomText(random, 200) + "Ünïcode wörds\n").toString());
+        wordTracker.saveTreeToFile();
+
+        for (int regionBits : new int[]{30, 10, 5, 2}) {
+            RepositoryIndex index = new RepositoryIndex(directory.resolve("repository.dat"),
+                    directory.resolve("repository.log"), regionBits);
+            assertSameAsTree(wordTracker.getWordTree(), index, "region bits " + regionBits);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RepositoryIndex(directory.resolve("repository.dat"),
+                directory.resolve("repository.log"), 31));
+    }
+
+    /**
+     * Tests that files indexed after the repository file was written are looked up in the journal, in place of what
+     * the repository file says about them: changed files replace their line numbers, words left in no file are gone,
+     * and words only in the journal are found.
+     */
+    @Test
+    public void testJournalMerge(@TempDir Path directory) throws IOException {
+        Path first = WordTrackerTest.write(directory.resolve("input/first.txt"), "alpha beta\ngamma\nshared\n");
+        Path second = WordTrackerTest.write(directory.resolve("input/second.txt"), "beta delta\nshared only\n");
+        // a large file keeps the journal smaller than half the repository file, so it is not compacted
+        Path large = WordTrackerTest.write(directory.resolve("input/large.txt"),
+                WordTrackerTest.randomText(new Random(12), 500));
+        WordTracker wordTracker = new WordTracker(directory, true);
+        wordTracker.processFiles(Arrays.asList(first.toString(), second.toString(), large.toString()));
+        wordTracker.saveTreeToFile();
+
+        WordTrackerTest.write(second, "beta\n\nepsilon shared\nzeta\n");
+        Path third = WordTrackerTest.write(directory.resolve("input/third.txt"), "Alpha omega\nshared\n");
+        wordTracker.processFiles(Arrays.asList(second.toString(), third.toString()));
+        wordTracker.saveTreeToFile();
+        assertTrue(Files.exists(directory.resolve("repository.log")));
+
+        RepositoryIndex index = WordTracker.openRepositoryIndex(directory);
+        assertNull(index.lookup("delta"));
+        assertNull(index.lookup("only"));
+        assertEquals("epsilon " + second + ":[3]", describe(index.lookup("EPSILON")));
+        assertEquals("beta " + first + ":[1] " + second + ":[1]", describe(index.lookup("beta")));
+        assertEquals("alpha " + first + ":[1] " + third + ":[1]", describe(index.lookup("alpha")));
+        assertSameAsTree(wordTracker.getWordTree(), index, "journal");
+    }
+
+    // helper method to check that every word of a tree, and every absent word, is looked up in the index as it is in
+    // the tree, and that prefixes and patterns find the same words
+    private static void assertSameAsTree(BSTree<WordNode> tree, RepositoryIndex index, String message) {
+        List<String> words = new ArrayList<>(Arrays.asList(ABSENT_WORDS));
+        Iterator<WordNode> iterator = tree.inorderIterator();
+        while (iterator.hasNext())
+            words.add(iterator.next().getWord());
+        for (String word : words) {
+            BSTreeNode<WordNode> node = tree.search(new WordNode(word));
+            assertEquals(node == null ? null : describe(node.getElement()), describe(index.lookup(word)),
+                    message + ", word " + word);
+        }
+        WordQuery query = new WordQuery(tree);
+        for (String prefix : new String[]{"", "w1", "W2", "ü", "zzz"})
+            assertEquals(describe(query.findPrefix(prefix)), describe(index.findPrefix(prefix)),
+                    message + ", prefix " + prefix);
+        for (String pattern : new String[]{"*", "w?", "W1*7", "*ö*", "?"})
+            assertEquals(describe(query.findPattern(pattern)), describe(index.findPattern(pattern)),
+                    message + ", pattern " + pattern);
+    }
+
+    private static List<String> describe(List<WordNode> wordNodes) {
+        List<String> descriptions = new ArrayList<>();
+        for (WordNode wordNode : wordNodes)
+            descriptions.add(describe(wordNode));
+        return descriptions;
+    }
+
+    // helper method to describe a WordNode as its word and the line numbers in each of its files
+    private static String describe(WordNode wordNode) {
+        if (wordNode == null)
+            return null;
+        StringBuilder description = new StringBuilder(wordNode.getWord());
+        for (int i = 0; i < wordNode.getFileCount(); i++)
+            description.append(' ').append(wordNode.getFilename(i)).append(':').append(wordNode.getLineNumbers(i));
+        return description.toString();
+    }
+}
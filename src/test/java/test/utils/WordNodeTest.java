@@ -0,0 +1,181 @@
+package test.utils;
+
+import main.datastructures.IntList;
+import main.utils.FileDictionary;
+import main.utils.WordNode;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * This class contains tests for the ordering of WordNodes and for the files and line numbers they record.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class WordNodeTest {
+
+    /**
+     * Tests that WordNodes order like their words compared ignoring case, including words that share a long prefix,
+     * words that are prefixes of each other and words with characters outside Latin-1.
+     */
+    @Test
+    public void testCompareToMatchesCompareToIgnoreCase() {
+        String[] words = {"", "a", "A", "ab", "abcdefgh", "ABCDEFGH", "abcdefghi", "abcdefgH", "abcdefgz", "Zebra",
+                "café", "CAFÉ", "cafe", "ÿ", "Ÿ", "ſ", "s", "S", "Ωmega", "ωmega", "a\u0000", "a\u0000b", "日本", "日本語"};
+        for (String first : words) {
+            for (String second : words) {
+                assertSameSign(first, second);
+            }
+        }
+
+        Random random = new Random(17);
+        char[] alphabet = "aAbBzZéÉÿŸſΩω日\u0000".toCharArray();
+        for (int i = 0; i < 100_000; i++) {
+            assertSameSign(randomWord(random, alphabet), randomWord(random, alphabet));
+        }
+    }
+
+    /**
+     * Tests that folding leaves folded words alone and folds the others.
+     */
+    @Test
+    public void testFoldCase() {
+        String folded = "already folded";
+        assertSame(folded, WordNode.foldCase(folded));
+        assertEquals("mixed case ωmega", WordNode.foldCase("Mixed CASE Ωmega"));
+        assertEquals('a', WordNode.foldCase('A'));
+        assertEquals('1', WordNode.foldCase('1'));
+    }
+
+    /**
+     * Tests that merging keeps the word of the node merged into, appends line numbers after the ones already
+     * recorded for a file, and adds new files in the order of their ids.
+     */
+    @Test
+    public void testMerge() {
+        String first = "wordnodetest-merge-1.txt";
+        String second = "wordnodetest-merge-2.txt";
+        String third = "wordnodetest-merge-3.txt";
+        assertTrue(FileDictionary.getId(first) < FileDictionary.getId(second));
+        assertTrue(FileDictionary.getId(second) < FileDictionary.getId(third));
+
+        WordNode wordNode = new WordNode("Tree");
+        wordNode.addFileAndLineNumber(third, 4);
+        wordNode.addFileAndLineNumber(first, 1);
+        WordNode other = new WordNode("tree");
+        other.addFileAndLineNumber(first, 7);
+        other.addFileAndLineNumber(second, 2);
+        other.addFileAndLineNumber(second, 3);
+        wordNode.merge(other);
+
+        assertEquals("Tree", wordNode.getWord());
+        assertEquals(3, wordNode.getFileCount());
+        assertEquals(first, wordNode.getFilename(0));
+        assertEquals(second, wordNode.getFilename(1));
+        assertEquals(third, wordNode.getFilename(2));
+        assertEquals("[1, 7]", wordNode.getLineNumbers(first).toString());
+        assertEquals("[2, 3]", wordNode.getLineNumbers(second).toString());
+        assertEquals("[4]", wordNode.getLineNumbers(third).toString());
+        // the other node keeps its own lists
+        assertEquals("[7]", other.getLineNumbers(first).toString());
+
+        wordNode.merge(new WordNode("tree"));
+        assertEquals(3, wordNode.getFileCount());
+    }
+
+    /**
+     * Tests that files are kept in the order of their ids whatever order they are added, replaced and removed in,
+     * and that looking up the line numbers of a file that has no id doesn't give it one.
+     */
+    @Test
+    public void testFilesSortedById() {
+        int[] ids = new int[6];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = FileDictionary.getId("wordnodetest-sorted-" + i + ".txt");
+        WordNode wordNode = new WordNode("sorted");
+        for (int i : new int[]{4, 1, 5, 0, 3, 1, 2, 4})
+            wordNode.addFileAndLineNumber(ids[i], 10 + i);
+        assertFileIds(wordNode, ids[0], ids[1], ids[2], ids[3], ids[4], ids[5]);
+        assertEquals("[11, 11]", wordNode.getLineNumbers(1).toString());
+
+        wordNode.replaceFileLines(ids[2], new IntList());
+        wordNode.replaceFileLines(ids[5], new IntList());
+        BitSet removed = new BitSet();
+        removed.set(ids[0]);
+        removed.set(ids[3]);
+        wordNode.removeFiles(removed);
+        assertFileIds(wordNode, ids[1], ids[4]);
+        IntList lines = new IntList();
+        lines.add(7);
+        wordNode.replaceFileLines(ids[3], lines);
+        wordNode.replaceFileLines(ids[4], lines);
+        assertFileIds(wordNode, ids[1], ids[3], ids[4]);
+        assertSame(lines, wordNode.getLineNumbers(2));
+
+        int size = FileDictionary.size();
+        assertNull(wordNode.getLineNumbers("wordnodetest-sorted-unknown.txt"));
+        assertEquals(size, FileDictionary.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> wordNode.getFileId(3));
+    }
+
+    /**
+     * Tests that a serialized WordNode keeps the names of its files rather than their ids.
+     */
+    @Test
+    public void testSerializesFilenames() throws IOException, ClassNotFoundException {
+        String first = "wordnodetest-serialized-1.txt";
+        String second = "wordnodetest-serialized-2.txt";
+        WordNode wordNode = new WordNode("Serialized");
+        wordNode.addFileAndLineNumber(second, 3);
+        wordNode.addFileAndLineNumber(first, 1);
+        wordNode.addFileAndLineNumber(first, 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(wordNode);
+        }
+        String serialized = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(serialized.contains(first) && serialized.contains(second));
+        WordNode read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (WordNode) in.readObject();
+        }
+        assertEquals("Serialized", read.getWord());
+        assertEquals(0, read.compareTo(wordNode));
+        assertEquals(2, read.getFileCount());
+        assertEquals(second, read.getFilename(0));
+        assertEquals("[1, 2]", read.getLineNumbers(first).toString());
+        assertEquals("[3]", read.getLineNumbers(second).toString());
+    }
+
+    // checks that a WordNode has the given file ids in that order
+    private static void assertFileIds(WordNode wordNode, int... ids) {
+        assertEquals(ids.length, wordNode.getFileCount());
+        for (int i = 0; i < ids.length; i++)
+            assertEquals(ids[i], wordNode.getFileId(i));
+    }
+
+    // checks that comparing two WordNodes has the same sign as comparing their words ignoring case
+    private static void assertSameSign(String first, String second) {
+        int expected = Integer.signum(first.compareToIgnoreCase(second));
+        int actual = Integer.signum(new WordNode(first).compareTo(new WordNode(second)));
+        assertEquals(expected, actual, () -> "comparing \"" + first + "\" with \"" + second + "\"");
+    }
+
+    private static String randomWord(Random random, char[] alphabet) {
+        char[] word = new char[random.nextInt(12)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,107 @@
+package test.utils;
+
+import main.datastructures.AVLTree;
+import main.datastructures.interfaces.Iterator;
+import main.utils.WordNode;
+import main.utils.WordQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class contains tests for the WordQuery.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class WordQueryTest {
+
+    /**
+     * The words in the tree.
+     */
+    private static final String[] WORDS = {"conf", "Confer", "conference", "configure", "cone", "Tree", "tee",
+            "three", "t", "ŧree", "trees", "a", "zebra"};
+
+    /**
+     * The tree that will be queried in the tests.
+     */
+    private AVLTree<WordNode> tree;
+
+    /**
+     * This method is executed before each test. It fills the tree.
+     */
+    @BeforeEach
+    public void setUp() {
+        tree = new AVLTree<>();
+        for (String word : WORDS) {
+            tree.add(new WordNode(word));
+        }
+    }
+
+    /**
+     * Tests prefix queries, which ignore case.
+     */
+    @Test
+    public void testFindPrefix() {
+        WordQuery query = new WordQuery(tree);
+        assertWords(query.findPrefix("CONF"), "conf", "Confer", "conference", "configure");
+        assertWords(query.findPrefix("confe"), "Confer", "conference");
+        assertWords(query.findPrefix("tree"), "Tree", "trees");
+        assertWords(query.findPrefix("x"));
+        assertEquals(WORDS.length, query.findPrefix("").size());
+        assertWords(new WordQuery(new AVLTree<>()).findPrefix("a"));
+    }
+
+    /**
+     * Tests wildcard queries against checking every word in the tree.
+     */
+    @Test
+    public void testFindPattern() {
+        WordQuery query = new WordQuery(tree);
+        assertWords(query.findPattern("t?ee"), "Tree");
+        assertWords(query.findPattern("t?e"), "tee");
+        assertWords(query.findPattern("T*E"), "tee", "three", "Tree");
+        assertWords(query.findPattern("conf"), "conf");
+        assertWords(query.findPattern("*re*"), "conference", "configure", "three", "Tree", "trees",
+                "ŧree");
+        for (String pattern : new String[]{"*", "?", "c*e", "*e", "con?*", "*?*?*", "t**s", "", "?ree", "*ŧ*"}) {
+            List<String> expected = new ArrayList<>();
+            Iterator<WordNode> iterator = tree.inorderIterator();
+            while (iterator.hasNext()) {
+                String word = iterator.next().getWord();
+                if (WordQuery.matches(pattern, word))
+                    expected.add(word);
+            }
+            assertWords(query.findPattern(pattern), expected.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Tests matching single words against patterns.
+     */
+    @Test
+    public void testMatches() {
+        assertTrue(WordQuery.matches("*", ""));
+        assertTrue(WordQuery.matches("", ""));
+        assertFalse(WordQuery.matches("?", ""));
+        assertTrue(WordQuery.matches("a*b*c", "AxxBxxbxC"));
+        assertFalse(WordQuery.matches("a*b*c", "axxbxxcx"));
+        assertTrue(WordQuery.matches("*aab", "aaaab"));
+        assertFalse(WordQuery.matches("ab", "abc"));
+        assertTrue(WordQuery.isPattern("t?ee"));
+        assertFalse(WordQuery.isPattern("tree"));
+    }
+
+    // checks that the query found exactly the given words, in order
+    private static void assertWords(List<WordNode> wordNodes, String... expected) {
+        List<String> words = new ArrayList<>();
+        for (WordNode wordNode : wordNodes) {
+            words.add(wordNode.getWord());
+        }
+        assertEquals(Arrays.asList(expected), words);
+    }
+}
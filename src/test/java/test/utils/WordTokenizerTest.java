@@ -0,0 +1,124 @@
+package test.utils;
+
+import main.utils.WordTokenizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class contains tests for the WordTokenizer.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class WordTokenizerTest {
+
+    /**
+     * Tests the words and line numbers of text with every kind of separator against the way words were found before
+     * the tokenizer, by splitting each line on whitespace and dropping the characters that are not kept.
+     */
+    @Test
+    public void testSameWordsAsRegex(@TempDir Path directory) throws IOException {
+        String text = "The quick,  brown\tfox\r\n"
+                + "jumps\fover\u000Bthe lazy dog.\r"
+                + "\r\n"
+                + "\n"
+                + "don't stop -- it's well-known! ... ?? 'quoted'\n"
+                + "café naïve 日本語 été x y\n"
+                + "  leading and trailing   \t\n"
+                + "last line without a newline";
+        Path file = directory.resolve("text.txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        List<String> expected = regexWords(file);
+        assertTrue(expected.contains("don't@5"));
+        assertTrue(expected.contains("caf@6"));
+        assertTrue(expected.contains("without@8"));
+        assertEquals(expected, tokenizerWords(file));
+    }
+
+    /**
+     * Tests random text made of words, punctuation, whitespace, line breaks and non-ASCII characters.
+     */
+    @Test
+    public void testRandomText(@TempDir Path directory) throws IOException {
+        String[] pieces = {"a", "Zz", "42", "'", "-", ".", "!?", " ", "  ", "\t", "\f", "\u000B", "\n", "\r",
+                "\r\n", "é", "日", " ", "word", "it's", "x-ray"};
+        Random random = new Random(4);
+        for (int round = 0; round < 20; round++) {
+            StringBuilder text = new StringBuilder();
+            // long enough to cross the tokenizer's buffer more than once
+            while (text.length() < 150_000)
+                text.append(pieces[random.nextInt(pieces.length)]);
+            Path file = directory.resolve("random" + round + ".txt");
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+            assertEquals(regexWords(file), tokenizerWords(file));
+        }
+    }
+
+    /**
+     * Tests that a memory-mapped file gives the same words as one read through a buffer, with regions small enough
+     * that words, "\r\n" line breaks and the buffer size all cross from one region to the next.
+     */
+    @Test
+    public void testMemoryMapped(@TempDir Path directory) throws IOException {
+        String[] pieces = {"alpha", "b", "it's", " ", "\t", "\n", "\r", "\r\n", "\r\n", ".", "é"};
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200_000)
+            text.append(pieces[random.nextInt(pieces.length)]);
+        Path file = directory.resolve("mapped.txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        // a region of a few bytes maps the file thousands of times, so the smallest regions get a short file
+        Path shortFile = directory.resolve("short.txt");
+        Files.write(shortFile, text.substring(0, 3000).getBytes(StandardCharsets.UTF_8));
+        for (long regionSize : new long[]{1, 2, 7})
+            assertEquals(regexWords(shortFile), mappedWords(shortFile, regionSize), "region size " + regionSize);
+        for (long regionSize : new long[]{4099, 64 * 1024 + 1, 1 << 20})
+            assertEquals(regexWords(file), mappedWords(file, regionSize), "region size " + regionSize);
+    }
+
+    // helper method to find words with a memory-mapped tokenizer
+    private static List<String> mappedWords(Path file, long regionSize) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (WordTokenizer tokenizer = new WordTokenizer(file.toString(), true)) {
+            tokenizer.setMappedRegionSize(regionSize);
+            String word;
+            while ((word = tokenizer.nextWord()) != null)
+                words.add(word + "@" + tokenizer.getLineNumber());
+        }
+        return words;
+    }
+
+    // helper method to find words the way they were found before the tokenizer
+    private static List<String> regexWords(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file);
+        for (int i = 0; i < lines.size(); i++) {
+            for (String word : lines.get(i).split("\\s+")) {
+                word = word.replaceAll("[^a-zA-Z0-9'-]", "");
+                if (!word.isEmpty())
+                    words.add(word + "@" + (i + 1));
+            }
+        }
+        return words;
+    }
+
+    // helper method to find words with the tokenizer
+    private static List<String> tokenizerWords(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (WordTokenizer tokenizer = new WordTokenizer(file.toString())) {
+            String word;
+            while ((word = tokenizer.nextWord()) != null)
+                words.add(word + "@" + tokenizer.getLineNumber());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,513 @@
+package test.utils;
+
+import main.datastructures.BSTree;
+import main.utils.BSTreeLogging;
+import main.utils.FileDictionary;
+import main.utils.WordNode;
+import main.utils.WordTracker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import org.junit.jupiter.api.extension.ExtendWith;
+import test.TestResultsLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This class contains tests for indexing files with a WordTracker. Every test keeps its repository in a temporary
+ * directory.
+ */
+@ExtendWith(TestResultsLogger.class)
+public class WordTrackerTest {
+
+    /**
+     * Tests that a directory is replaced by every regular file inside it, including the ones in subdirectories,
+     * in the order of their paths.
+     */
+    @Test
+    public void testDirectoryWalk(@TempDir Path directory) throws IOException {
+        Path input = directory.resolve("input");
+        write(input.resolve("b.txt"), "tree\n");
+        write(input.resolve("a.txt"), "tree leaf\n");
+        write(input.resolve("sub/c.txt"), "leaf\ntree\n");
+
+        WordTracker wordTracker = new WordTracker(directory.resolve("repository"), true);
+        wordTracker.processFiles(Collections.singletonList(input.toString()));
+
+        WordNode tree = wordTracker.getWordTree().search(new WordNode("tree")).getElement();
+        assertEquals(3, tree.getFileCount());
+        assertEquals(input.resolve("a.txt").toString(), tree.getFilename(0));
+        assertEquals(input.resolve("b.txt").toString(), tree.getFilename(1));
+        assertEquals(input.resolve("sub/c.txt").toString(), tree.getFilename(2));
+        assertEquals("[2]", tree.getLineNumbers(input.resolve("sub/c.txt").toString()).toString());
+        assertEquals(2, wordTracker.getWordTree().size());
+    }
+
+    /**
+     * Tests that a file given more than once, directly and through its directory, is only indexed once.
+     */
+    @Test
+    public void testDuplicatePaths(@TempDir Path directory) throws IOException {
+        Path input = directory.resolve("input");
+        Path file = write(input.resolve("a.txt"), "one two\ntwo\n");
+
+        WordTracker wordTracker = new WordTracker(directory.resolve("repository"), true);
+        wordTracker.processFiles(Arrays.asList(file.toString(), input.toString(), file.toString()));
+
+        WordNode two = wordTracker.getWordTree().search(new WordNode("two")).getElement();
+        assertEquals(1, two.getFileCount());
+        assertEquals("[1, 2]", two.getLineNumbers(0).toString());
+    }
+
+    /**
+     * Tests that a file processed again is skipped while its content is the same, even when its time changed, and
+     * that a file whose size and time are the same is not read again.
+     */
+    @Test
+    public void testSkipsUnchangedFiles(@TempDir Path directory) throws IOException {
+        Path file = write(directory.resolve("input/a.txt"), "one two\ntwo\n");
+        WordTracker wordTracker = new WordTracker(directory.resolve("repository"), true);
+        wordTracker.processFile(file.toString());
+        wordTracker.processFile(file.toString());
+        WordNode two = wordTracker.getWordTree().search(new WordNode("two")).getElement();
+        assertEquals("[1, 2]", two.getLineNumbers(file.toString()).toString());
+
+        FileTime time = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(time.toMillis() + 60_000));
+        wordTracker.processFile(file.toString());
+        assertEquals("[1, 2]", two.getLineNumbers(file.toString()).toString());
+        assertEquals(2, wordTracker.getWordTree().size());
+
+        // the same size and time are taken to mean the same content, so the file is not hashed
+        time = Files.getLastModifiedTime(file);
+        write(file, "six two\ntwo\n");
+        Files.setLastModifiedTime(file, time);
+        wordTracker.processFile(file.toString());
+        assertTrue(wordTracker.getWordTree().contains(new WordNode("one")));
+        assertFalse(wordTracker.getWordTree().contains(new WordNode("six")));
+    }
+
+    /**
+     * Tests that processing a changed file replaces its line numbers, removes the words left in no file, and leaves
+     * the other files as they were, so the result is the same as indexing the files as they are now.
+     */
+    @Test
+    public void testReplacesChangedFile(@TempDir Path directory) throws IOException {
+        Path first = write(directory.resolve("input/first.txt"), "alpha beta\ngamma\nshared\n");
+        Path second = write(directory.resolve("input/second.txt"), "beta\nshared delta\n");
+        List<String> files = Arrays.asList(first.toString(), second.toString());
+        WordTracker wordTracker = new WordTracker(directory.resolve("repository"), true);
+        wordTracker.processFiles(files);
+
+        write(first, "beta\n\nepsilon shared\nbeta\n");
+        wordTracker.processFiles(files);
+        assertNull(wordTracker.getWordTree().search(new WordNode("alpha")));
+        assertNull(wordTracker.getWordTree().search(new WordNode("gamma")));
+        WordNode beta = wordTracker.getWordTree().search(new WordNode("beta")).getElement();
+        assertEquals("[1, 4]", beta.getLineNumbers(first.toString()).toString());
+        assertEquals("[1]", beta.getLineNumbers(second.toString()).toString());
+        WordNode delta = wordTracker.getWordTree().search(new WordNode("delta")).getElement();
+        assertEquals(1, delta.getFileCount());
+        assertEquals(4, wordTracker.getWordTree().size());
+
+        WordTracker fresh = new WordTracker(directory.resolve("fresh"), true);
+        fresh.processFiles(files);
+        assertArrayEquals(report(fresh.getWordTree(), directory.resolve("fresh.txt")),
+                report(wordTracker.getWordTree(), directory.resolve("updated.txt")));
+    }
+
+    /**
+     * Tests that indexing files in parallel gives the same report as indexing them one at a time, with the files of
+     * every word in the order the files were given.
+     */
+    @Test
+    public void testMergeOrderMatchesSequential(@TempDir Path directory) throws IOException {
+        List<String> files = new ArrayList<>();
+        Random random = new Random(6);
+        for (int i = 0; i < 12; i++)
+            files.add(write(directory.resolve("input/file" + (char) ('a' + i) + ".txt"), randomText(random, 300)).toString());
+
+        WordTracker parallel = new WordTracker(directory.resolve("parallel"), true);
+        parallel.setParallelism(4);
+        parallel.processFiles(files);
+
+        WordTracker sequential = new WordTracker(directory.resolve("sequential"), true);
+        sequential.setParallelism(1);
+        for (String file : files)
+            sequential.processFile(file);
+
+        assertArrayEquals(report(sequential.getWordTree(), directory.resolve("sequential.txt")),
+                report(parallel.getWordTree(), directory.resolve("parallel.txt")));
+    }
+
+    /**
+     * Tests that a file split into small chunks, with "\r\n" and "\r" line breaks, blank lines and a last line without
+     * a line break, gives the same report as the file indexed in one piece, inserting words into a tree per chunk,
+     * into one tree shared by the chunks, and bulk loading them.
+     */
+    @Test
+    public void testChunksMatchSequential(@TempDir Path directory) throws IOException {
+        String text = "first line\r\n\r\n\r\nsecond\rthird\n\nfourth line here\r\n"
+                + "  \t \r\nfifth\n\r\nsixth\r\rseventh line\r\n" + randomText(new Random(7), 40).replace("\n", "\r\n")
+                + "\n\nlast line without a line break";
+        Path file = write(directory.resolve("input/crlf.txt"), text);
+
+        WordTracker sequential = new WordTracker(directory.resolve("sequential"), true);
+        sequential.setParallelism(1);
+        sequential.processFile(file.toString());
+        byte[] expected = report(sequential.getWordTree(), directory.resolve("sequential.txt"));
+
+        int run = 0;
+        for (int mode = 0; mode < 3; mode++) {
+            for (long chunkSize : new long[]{1, 2, 3, 5, 16, 100}) {
+                for (int parallelism : new int[]{2, 7, 64}) {
+                    WordTracker chunked = new WordTracker(directory.resolve("chunked" + run), true);
+                    chunked.setSharedTree(mode == 1);
+                    chunked.setBulkLoad(mode == 2);
+                    chunked.setChunkSize(chunkSize);
+                    chunked.setParallelism(parallelism);
+                    chunked.processFile(file.toString());
+                    assertArrayEquals(expected, report(chunked.getWordTree(), directory.resolve("chunked" + run + ".txt")),
+                            "mode " + mode + ", chunk size " + chunkSize + ", parallelism " + parallelism);
+                    run++;
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> sequential.setChunkSize(0));
+    }
+
+    /**
+     * Tests that file ids are given out in the order the files were given however the chunks are scheduled, so the
+     * files of a word are listed in that order, inserting words into a tree per chunk, into one tree shared by the
+     * chunks of a file, and bulk loading them.
+     */
+    @Test
+    public void testFileIdsFollowFileOrder(@TempDir Path directory) throws IOException {
+        Random random = new Random(11);
+        for (String mode : Arrays.asList("insert", "shared", "bulk")) {
+            List<String> files = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                // a common word on the last line, so every chunk of the file is indexed before it is listed
+                String text = randomText(random, 20 + random.nextInt(200)) + "common\n";
+                files.add(write(directory.resolve(mode + "/file" + (char) ('a' + i) + ".txt"), text).toString());
+            }
+            WordTracker wordTracker = new WordTracker(directory.resolve(mode + "-repository"), true);
+            wordTracker.setParallelism(4);
+            wordTracker.setReadParallelism(4);
+            wordTracker.setChunkSize(128);
+            wordTracker.setSharedTree(mode.equals("shared"));
+            wordTracker.setBulkLoad(mode.equals("bulk"));
+            wordTracker.processFiles(files);
+
+            WordNode common = wordTracker.getWordTree().search(new WordNode("common")).getElement();
+            assertEquals(files.size(), common.getFileCount(), mode);
+            for (int i = 0; i < files.size(); i++) {
+                assertEquals(files.get(i), common.getFilename(i), mode);
+                if (i > 0)
+                    assertTrue(FileDictionary.findId(files.get(i - 1)) < FileDictionary.findId(files.get(i)), mode);
+            }
+        }
+    }
+
+    /**
+     * Tests that when a chunk cannot be read, the files before it stay indexed, and the file after it keeps the
+     * metadata it had, so it is indexed again the next time, inserting words and bulk loading them. A sysfs file can
+     * be read and hashed but not memory-mapped, so it fails once it is indexed.
+     */
+    @Test
+    public void testPartialFailure(@TempDir Path directory) throws IOException {
+        Path unmappable = Paths.get("/sys/kernel/mm/transparent_hugepage/enabled");
+        assumeTrue(Files.isReadable(unmappable) && Files.size(unmappable) > 0);
+        for (boolean bulkLoad : new boolean[] {false, true}) {
+            Path first = write(directory.resolve("input-" + bulkLoad + "/first.txt"), "alpha\nshared\n");
+            Path last = write(directory.resolve("input-" + bulkLoad + "/last.txt"), "omega old\n");
+            WordTracker wordTracker = new WordTracker(directory.resolve("repository-" + bulkLoad), true);
+            wordTracker.setBulkLoad(bulkLoad);
+            wordTracker.processFile(last.toString());
+
+            write(last, "omega new\nshared\n");
+            wordTracker.setMemoryMapped(true);
+            assertThrows(IOException.class, () -> wordTracker.processFiles(
+                    Arrays.asList(first.toString(), unmappable.toString(), last.toString())));
+            WordNode alpha = wordTracker.getWordTree().search(new WordNode("alpha")).getElement();
+            assertEquals("[1]", alpha.getLineNumbers(first.toString()).toString());
+            assertNull(wordTracker.getWordTree().search(new WordNode("new")));
+            assertNotNull(wordTracker.getWordTree().search(new WordNode("old")));
+
+            wordTracker.setMemoryMapped(false);
+            wordTracker.processFiles(Arrays.asList(first.toString(), last.toString()));
+            assertNull(wordTracker.getWordTree().search(new WordNode("old")));
+            WordNode shared = wordTracker.getWordTree().search(new WordNode("shared")).getElement();
+            assertEquals("[2]", shared.getLineNumbers(first.toString()).toString());
+            assertEquals("[2]", shared.getLineNumbers(last.toString()).toString());
+            assertEquals(4, wordTracker.getWordTree().size());
+        }
+    }
+
+    /**
+     * Tests that the BST can be saved after a chunk could not be read, and that the files that failed keep the words
+     * they had once the saved files are read again.
+     */
+    @Test
+    public void testSaveAfterPartialFailure(@TempDir Path directory) throws IOException {
+        Path unmappable = Paths.get("/sys/kernel/mm/transparent_hugepage/enabled");
+        assumeTrue(Files.isReadable(unmappable) && Files.size(unmappable) > 0);
+        for (boolean bulkLoad : new boolean[] {false, true}) {
+            Path repository = Files.createDirectory(directory.resolve("repository-" + bulkLoad));
+            Path first = write(directory.resolve("input-" + bulkLoad + "/first.txt"), "alpha\n");
+            Path last = write(directory.resolve("input-" + bulkLoad + "/last.txt"), "omega old\n");
+            WordTracker wordTracker = new WordTracker(repository, true);
+            wordTracker.setBulkLoad(bulkLoad);
+            wordTracker.processFile(last.toString());
+            wordTracker.saveTreeToFile();
+
+            write(last, "omega new\n");
+            wordTracker.setMemoryMapped(true);
+            assertThrows(IOException.class, () -> wordTracker.processFiles(
+                    Arrays.asList(first.toString(), unmappable.toString(), last.toString())));
+            wordTracker.saveTreeToFile();
+
+            WordTracker saved = new WordTracker(repository, true);
+            assertNull(saved.getReadFailure());
+            assertNotNull(saved.getWordTree().search(new WordNode("alpha")));
+            assertNotNull(saved.getWordTree().search(new WordNode("old")));
+            assertNull(saved.getWordTree().search(new WordNode("new")));
+            assertEquals(3, saved.getWordTree().size());
+        }
+    }
+
+    /**
+     * Tests that background saves started before the one before them is done run one after another.
+     */
+    @Test
+    public void testOverlappingBackgroundSaves(@TempDir Path directory)
+            throws IOException, InterruptedException, ExecutionException {
+        Path repository = Files.createDirectory(directory.resolve("repository"));
+        Random random = new Random(25);
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            files.add(write(directory.resolve("input/file" + i + ".txt"), randomText(random, 400)).toString());
+        WordTracker wordTracker = new WordTracker(repository, true);
+        wordTracker.processFiles(files);
+
+        List<Future<?>> saves = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            saves.add(wordTracker.saveTreeToFileInBackground());
+        for (Future<?> save : saves)
+            save.get();
+        WordTracker saved = new WordTracker(repository, true);
+        assertNull(saved.getReadFailure());
+        assertArrayEquals(report(wordTracker.getWordTree(), directory.resolve("expected.txt")),
+                report(saved.getWordTree(), directory.resolve("saved.txt")));
+    }
+
+    /**
+     * Tests that a report written while the BST is saved in the background is the same as the report of the saved
+     * BST, both when the whole BST is written and when a change is appended to the journal.
+     */
+    @Test
+    public void testBackgroundSaveWhileReporting(@TempDir Path directory)
+            throws IOException, InterruptedException, ExecutionException {
+        Path repository = Files.createDirectory(directory.resolve("repository"));
+        Random random = new Random(12);
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            files.add(write(directory.resolve("input/file" + i + ".txt"), randomText(random, 400)).toString());
+        WordTracker wordTracker = new WordTracker(repository, true);
+        wordTracker.processFiles(files);
+
+        for (int round = 0; round < 3; round++) {
+            Future<?> save = wordTracker.saveTreeToFileInBackground();
+            byte[] expected = report(wordTracker.getWordTree(), directory.resolve("expected.txt"));
+            save.get();
+            assertTrue(save.isDone());
+            assertArrayEquals(expected, report(new WordTracker(repository, true).getWordTree(),
+                    directory.resolve("saved.txt")), "round " + round);
+            write(Paths.get(files.get(round)), randomText(random, 20));
+            wordTracker.processFiles(files);
+        }
+        assertTrue(Files.exists(repository.resolve("repository.log")));
+    }
+
+    /**
+     * Tests that a BST serialized by an older version is converted when there is no binary file, and written to the
+     * binary file when it is saved.
+     */
+    @Test
+    public void testConvertsLegacyRepository(@TempDir Path directory) throws IOException {
+        // serialized from a.txt "Hello world\nthe World turns\nzebra apple hello\n" and b.txt "apple\n\nbanana hello\n"
+        try (InputStream legacy = getClass().getResourceAsStream("legacy-repository.ser")) {
+            Files.copy(legacy, directory.resolve("repository.ser"));
+        }
+        WordTracker wordTracker = new WordTracker(directory, true);
+        assertNull(wordTracker.getReadFailure());
+        assertEquals(7, wordTracker.getWordTree().size());
+        WordNode hello = wordTracker.getWordTree().search(new WordNode("hello")).getElement();
+        assertEquals("Hello", hello.getWord());
+        assertEquals("[1, 3]", hello.getLineNumbers("a.txt").toString());
+        assertEquals("[3]", hello.getLineNumbers("b.txt").toString());
+        byte[] expected = report(wordTracker.getWordTree(), directory.resolve("converted.txt"));
+
+        wordTracker.saveTreeToFile();
+        assertTrue(Files.exists(directory.resolve("repository.dat")));
+        Files.delete(directory.resolve("repository.ser"));
+        assertArrayEquals(expected, report(new WordTracker(directory, true).getWordTree(),
+                directory.resolve("saved.txt")));
+    }
+
+    /**
+     * Tests that a serialized BST that cannot be converted is reported as a read failure, and that saving doesn't
+     * write a binary file that would be read in its place from then on.
+     */
+    @Test
+    public void testUnconvertibleLegacyRepositoryIsKept(@TempDir Path directory) throws IOException {
+        byte[] legacy;
+        try (InputStream input = getClass().getResourceAsStream("legacy-repository.ser")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = input.read(buffer)) > 0; )
+                bytes.write(buffer, 0, read);
+            legacy = bytes.toByteArray();
+        }
+        // a serialized BST cut off halfway
+        byte[] damaged = Arrays.copyOf(legacy, legacy.length / 2);
+        Files.write(directory.resolve("repository.ser"), damaged);
+
+        WordTracker wordTracker = new WordTracker(directory, true);
+        assertNotNull(wordTracker.getReadFailure());
+        assertTrue(wordTracker.getReadFailure().getMessage().contains("repository.ser"));
+        assertTrue(wordTracker.getWordTree().isEmpty());
+        wordTracker.processFile(write(directory.resolve("input/a.txt"), "one two\n").toString());
+        wordTracker.saveTreeToFile();
+        assertThrows(IOException.class, wordTracker::compact);
+        assertFalse(Files.exists(directory.resolve("repository.dat")));
+        assertArrayEquals(damaged, Files.readAllBytes(directory.resolve("repository.ser")));
+    }
+
+    /**
+     * Tests that saving after indexing a changed file appends it to the journal, that a new WordTracker replays the
+     * journal, and that the journal is compacted into the binary file once it grows to half the size of it.
+     */
+    @Test
+    public void testJournalReplayAndCompaction(@TempDir Path directory) throws IOException {
+        Path repository = Files.createDirectory(directory.resolve("repository"));
+        Path large = write(directory.resolve("input/large.txt"), randomText(new Random(10), 400));
+        Path small = directory.resolve("input/small.txt");
+        WordTracker wordTracker = new WordTracker(repository, true);
+        wordTracker.processFile(large.toString());
+        wordTracker.saveTreeToFile();
+        assertTrue(Files.exists(repository.resolve("repository.dat")));
+        assertFalse(Files.exists(repository.resolve("repository.log")));
+
+        boolean compacted = false;
+        for (int round = 1; round <= 100 && !compacted; round++) {
+            long repositorySize = Files.size(repository.resolve("repository.dat"));
+            write(small, randomText(new Random(round), round));
+            wordTracker.processFile(small.toString());
+            wordTracker.saveTreeToFile();
+            byte[] expected = report(wordTracker.getWordTree(), directory.resolve("expected.txt"));
+            assertArrayEquals(expected, report(new WordTracker(repository, true).getWordTree(),
+                    directory.resolve("replayed.txt")), "round " + round);
+
+            Path journal = repository.resolve("repository.log");
+            if (Files.exists(journal)) {
+                assertTrue(Files.size(journal) < Files.size(repository.resolve("repository.dat")) / 2);
+                assertEquals(repositorySize, Files.size(repository.resolve("repository.dat")));
+            } else {
+                compacted = round > 1;
+                assertTrue(compacted, "the first change goes to the journal");
+            }
+        }
+        assertTrue(compacted);
+    }
+
+    /**
+     * Tests that a record cut short at the end of the journal is reported, and that its file is indexed again.
+     */
+    @Test
+    public void testTornJournalIsReported(@TempDir Path directory) throws IOException {
+        Path repository = Files.createDirectory(directory.resolve("repository"));
+        // a large first file, so the journal stays smaller than half of the binary file and isn't compacted
+        Path first = write(directory.resolve("input/a.txt"), randomText(new Random(13), 400));
+        Path second = write(directory.resolve("input/b.txt"), "three\n");
+        WordTracker wordTracker = new WordTracker(repository, true);
+        wordTracker.processFile(first.toString());
+        wordTracker.saveTreeToFile();
+        wordTracker.processFile(second.toString());
+        wordTracker.saveTreeToFile();
+        assertNull(new WordTracker(repository, true).getJournalDamage());
+
+        Path journal = repository.resolve("repository.log");
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length - 1));
+        WordTracker reopened = new WordTracker(repository, true);
+        assertNotNull(reopened.getJournalDamage());
+        assertNull(reopened.getReadFailure());
+        assertNull(reopened.getWordTree().search(new WordNode("three")));
+        reopened.processFiles(Arrays.asList(first.toString(), second.toString()));
+        assertNotNull(reopened.getWordTree().search(new WordNode("three")));
+    }
+
+    /**
+     * Tests that saved files that cannot be read are not overwritten when saving.
+     */
+    @Test
+    public void testUnreadableJournalIsKept(@TempDir Path directory) throws IOException {
+        Path repository = Files.createDirectory(directory.resolve("repository"));
+        Path input = write(directory.resolve("input/a.txt"), "one two\n");
+        WordTracker wordTracker = new WordTracker(repository, true);
+        wordTracker.processFile(input.toString());
+        wordTracker.saveTreeToFile();
+        byte[] saved = Files.readAllBytes(repository.resolve("repository.dat"));
+        // a journal of a newer version
+        byte[] journal = {'W', 'T', 'R', 'J', 9, 1, 2, 3};
+        Files.write(repository.resolve("repository.log"), journal);
+
+        WordTracker reopened = new WordTracker(repository, true);
+        reopened.processFile(write(directory.resolve("input/b.txt"), "three\n").toString());
+        reopened.saveTreeToFile();
+        assertThrows(IOException.class, reopened::compact);
+        assertArrayEquals(saved, Files.readAllBytes(repository.resolve("repository.dat")));
+        assertArrayEquals(journal, Files.readAllBytes(repository.resolve("repository.log")));
+    }
+
+    // helper method to write a file, creating its directory
+    static Path write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // helper method to make lines of words drawn from a small vocabulary, so most words occur in many files
+    static String randomText(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            for (int j = random.nextInt(8); j > 0; j--)
+                text.append("w").append(random.nextInt(200)).append(' ');
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    // helper method to write the report with line numbers of a tree and read it back
+    static byte[] report(BSTree<WordNode> tree, Path file) throws IOException {
+        BSTreeLogging logging = new BSTreeLogging(tree, file.toString());
+        logging.printWordsWithLineNumbers();
+        logging.close();
+        return Files.readAllBytes(file);
+    }
+}